@@ -0,0 +1,80 @@
+package nl.han.ica.datastructures.bench;
+
+import nl.han.ica.datastructures.HANLinkedList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HANLinkedList against the java.util lists: building a list with addFirst, and visiting all
+ * elements by index.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkedListBenchmark {
+
+    @Param({"1", "8", "64", "1024"})
+    public int size;
+
+    private HANLinkedList<Integer> hanLinkedList;
+    private LinkedList<Integer> linkedList;
+    private ArrayList<Integer> arrayList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hanLinkedList = new HANLinkedList<>();
+        linkedList = new LinkedList<>();
+        arrayList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            hanLinkedList.addFirst(i);
+            linkedList.addFirst(i);
+            arrayList.add(i);
+        }
+    }
+
+    @Benchmark
+    public HANLinkedList<Integer> hanLinkedListAddFirst() {
+        HANLinkedList<Integer> list = new HANLinkedList<>();
+        for (int i = 0; i < size; i++) {
+            list.addFirst(i);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public LinkedList<Integer> linkedListAddFirst() {
+        LinkedList<Integer> list = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            list.addFirst(i);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public void hanLinkedListIndexedScan(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(hanLinkedList.get(i));
+        }
+    }
+
+    @Benchmark
+    public void linkedListIndexedScan(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(linkedList.get(i));
+        }
+    }
+
+    @Benchmark
+    public void arrayListIndexedScan(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(arrayList.get(i));
+        }
+    }
+}
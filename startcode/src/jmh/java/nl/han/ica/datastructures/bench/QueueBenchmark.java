@@ -0,0 +1,75 @@
+package nl.han.ica.datastructures.bench;
+
+import nl.han.ica.datastructures.HANArrayQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueues and dequeues size elements, half of them interleaved so the ring buffer wraps around.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int size;
+
+    private final HANArrayQueue<Integer> hanArrayQueue = new HANArrayQueue<>();
+    private final ArrayDeque<Integer> arrayDeque = new ArrayDeque<>();
+    private final LinkedList<Integer> linkedList = new LinkedList<>();
+
+    @Benchmark
+    public int hanArrayQueue() {
+        Integer value = 0;
+        int dequeued = 0;
+        for (int i = 0; i < size; i++) {
+            hanArrayQueue.enqueue(value);
+            if (i % 2 == 1) {
+                dequeued += hanArrayQueue.dequeue();
+            }
+        }
+        while (!hanArrayQueue.isEmpty()) {
+            dequeued += hanArrayQueue.dequeue();
+        }
+        return dequeued;
+    }
+
+    @Benchmark
+    public int arrayDeque() {
+        Integer value = 0;
+        int dequeued = 0;
+        for (int i = 0; i < size; i++) {
+            arrayDeque.addLast(value);
+            if (i % 2 == 1) {
+                dequeued += arrayDeque.removeFirst();
+            }
+        }
+        while (!arrayDeque.isEmpty()) {
+            dequeued += arrayDeque.removeFirst();
+        }
+        return dequeued;
+    }
+
+    @Benchmark
+    public int linkedList() {
+        Integer value = 0;
+        int dequeued = 0;
+        for (int i = 0; i < size; i++) {
+            linkedList.addLast(value);
+            if (i % 2 == 1) {
+                dequeued += linkedList.removeFirst();
+            }
+        }
+        while (!linkedList.isEmpty()) {
+            dequeued += linkedList.removeFirst();
+        }
+        return dequeued;
+    }
+}
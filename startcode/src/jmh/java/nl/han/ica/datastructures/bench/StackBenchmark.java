@@ -0,0 +1,88 @@
+package nl.han.ica.datastructures.bench;
+
+import nl.han.ica.datastructures.HANArrayStack;
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes size elements on an empty stack and pops them again. The parser keeps its open AST
+ * nodes on a stack, so size is the nesting depth of the source.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StackBenchmark {
+
+    @Param({"HANStack", "HANArrayStack", "ArrayDeque", "LinkedList"})
+    public String implementation;
+
+    @Param({"1", "64", "1024"})
+    public int size;
+
+    private IHANStack<Integer> stack;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (implementation) {
+            case "HANStack":
+                stack = new HANStack<>();
+                break;
+            case "HANArrayStack":
+                stack = new HANArrayStack<>();
+                break;
+            case "ArrayDeque":
+                stack = new DequeStack<>(new ArrayDeque<>());
+                break;
+            case "LinkedList":
+                stack = new DequeStack<>(new LinkedList<>());
+                break;
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+    }
+
+    @Benchmark
+    public int pushPop() {
+        Integer value = 0;
+        for (int i = 0; i < size; i++) {
+            stack.push(value);
+        }
+        int popped = 0;
+        for (int i = 0; i < size; i++) {
+            popped += stack.pop();
+        }
+        return popped;
+    }
+
+    private static class DequeStack<T> implements IHANStack<T> {
+        private final Deque<T> deque;
+
+        DequeStack(Deque<T> deque) {
+            this.deque = deque;
+        }
+
+        @Override
+        public void push(T value) {
+            deque.push(value);
+        }
+
+        @Override
+        public T pop() {
+            return deque.pop();
+        }
+
+        @Override
+        public T peek() {
+            return deque.peek();
+        }
+    }
+}
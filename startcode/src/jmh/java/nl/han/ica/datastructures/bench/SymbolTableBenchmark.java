@@ -0,0 +1,124 @@
+package nl.han.ica.datastructures.bench;
+
+import nl.han.ica.datastructures.HANPersistentScopeTable;
+import nl.han.ica.datastructures.IHANSymbolTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The symbol table of the checker against a HashMap per scope, with variables spread evenly over
+ * depth open scopes.
+ *
+ * lookup resolves the names of all scopes in turn, so on average half of the scopes are in front
+ * of a name. scope opens one more scope, assigns a local and an outer variable, reads both and
+ * closes the scope again, the way the checker handles a style rule.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+
+    @Param({"HANPersistentScopeTable", "ArrayListOfHashMaps"})
+    public String implementation;
+
+    @Param({"1", "8", "64"})
+    public int depth;
+
+    @Param({"1", "100", "10000"})
+    public int variables;
+
+    private IHANSymbolTable<String, Integer> table;
+    private String[] names;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (implementation) {
+            case "HANPersistentScopeTable":
+                table = new HANPersistentScopeTable<>();
+                break;
+            case "ArrayListOfHashMaps":
+                table = new HashMapScopes<>();
+                break;
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+
+        names = new String[variables];
+        for (int scope = 0; scope < depth; scope++) {
+            table.pushScope();
+            // Scope i gets the names i, i + depth, i + 2 * depth, ...
+            for (int i = scope; i < variables; i += depth) {
+                names[i] = "Var" + i;
+                table.putVariable(names[i], i);
+            }
+        }
+    }
+
+    @Benchmark
+    public Integer lookup() {
+        next = next + 1 == names.length ? 0 : next + 1;
+        return table.getVariable(names[next]);
+    }
+
+    @Benchmark
+    public Integer scope() {
+        table.pushScope();
+        table.putVariable("Local", 1);
+        table.putVariable(names[0], 0);
+        Integer value = table.getVariable("Local") + table.getVariable(names[0]);
+        table.popScope();
+        return value;
+    }
+
+    /**
+     * Baseline out of java.util: one HashMap per scope, searched from the innermost scope outwards.
+     */
+    private static class HashMapScopes<K, V> implements IHANSymbolTable<K, V> {
+        private final ArrayList<HashMap<K, V>> scopes = new ArrayList<>();
+
+        @Override
+        public void pushScope() {
+            scopes.add(new HashMap<>());
+        }
+
+        @Override
+        public void popScope() {
+            scopes.remove(scopes.size() - 1);
+        }
+
+        @Override
+        public void putVariable(K key, V value) {
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                HashMap<K, V> scope = scopes.get(i);
+                if (scope.containsKey(key)) {
+                    scope.put(key, value);
+                    return;
+                }
+            }
+            scopes.get(scopes.size() - 1).put(key, value);
+        }
+
+        @Override
+        public V getVariable(K key) {
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                V value = scopes.get(i).get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public int getTotalAmountOfScopes() {
+            return scopes.size();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checker.check. The checker does not modify a correct AST, so one AST is checked over and over.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckBenchmark {
+
+    private AST ast;
+
+    @Setup(Level.Trial)
+    public void setUp(StylesheetState stylesheet) {
+        ast = stylesheet.parse();
+    }
+
+    @Benchmark
+    public AST check() {
+        (new Checker()).check(ast);
+        return ast;
+    }
+}
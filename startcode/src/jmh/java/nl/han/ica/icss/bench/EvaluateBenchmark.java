@@ -0,0 +1,34 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluator.evaluate. The evaluator does not change its input, so all invocations evaluate the
+ * same parsed and checked AST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluateBenchmark {
+
+    private AST ast;
+
+    @Setup(Level.Trial)
+    public void setUp(StylesheetState stylesheet) {
+        ast = stylesheet.parse();
+        (new Checker()).check(ast);
+    }
+
+    @Benchmark
+    public AST evaluate() {
+        return (new Evaluator()).evaluate(ast);
+    }
+}
@@ -0,0 +1,35 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generator.generate on an evaluated AST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerateBenchmark {
+
+    private AST ast;
+
+    @Setup(Level.Trial)
+    public void setUp(StylesheetState stylesheet) {
+        ast = stylesheet.parse();
+        (new Checker()).check(ast);
+        (new Evaluator()).apply(ast);
+    }
+
+    @Benchmark
+    public String generate() {
+        return (new Generator()).generate(ast);
+    }
+}
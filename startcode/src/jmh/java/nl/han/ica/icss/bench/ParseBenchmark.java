@@ -0,0 +1,22 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.ast.AST;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline.parseString: lexing, parsing and building the AST.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Benchmark
+    public AST parse(StylesheetState stylesheet) {
+        return stylesheet.parse();
+    }
+}
@@ -0,0 +1,39 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.workload.StylesheetGenerator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Generated stylesheet shared by the phase benchmarks.
+ * rules is the number of style rules, depth the nesting depth of the if/else clauses in every rule.
+ */
+@State(Scope.Benchmark)
+public class StylesheetState {
+
+    @Param({"10", "100", "1000"})
+    public int rules;
+
+    @Param({"1", "4", "8"})
+    public int depth;
+
+    public String source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = new StylesheetGenerator().rules(rules).ifDepth(depth).generate();
+    }
+
+    /**
+     * @return a freshly parsed AST of the source
+     */
+    public AST parse() {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(source);
+        if (!pipeline.getErrors().isEmpty()) {
+            throw new IllegalStateException("Benchmark input does not parse: " + pipeline.getErrors());
+        }
+        return pipeline.getAST();
+    }
+}
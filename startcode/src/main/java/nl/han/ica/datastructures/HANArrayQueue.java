@@ -0,0 +1,78 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Queue on a growable ring buffer. Enqueue and dequeue are amortized O(1) and do not allocate
+ * per element.
+ */
+public class HANArrayQueue<T> implements IHANQueue<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements;
+    // Index of the front of the queue; the elements wrap around the end of the array
+    private int head = 0;
+    private int size = 0;
+
+    public HANArrayQueue() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HANArrayQueue(int initialCapacity) {
+        elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void enqueue(T value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    @Override
+    public T dequeue() {
+        T value = peek();
+        elements[head] = null; // Let the garbage collector have it
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        return (T) elements[head];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    private void grow() {
+        // Unwrap while copying, so the front ends up at index 0
+        Object[] grown = new Object[elements.length * 2];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+        elements = grown;
+        head = 0;
+    }
+}
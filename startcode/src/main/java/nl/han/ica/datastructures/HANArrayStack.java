@@ -0,0 +1,53 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Stack on a growable array. Push and pop are amortized O(1) and do not allocate per element.
+ */
+public class HANArrayStack<T> implements IHANStack<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] elements;
+    private int size = 0;
+
+    public HANArrayStack() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HANArrayStack(int initialCapacity) {
+        elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void push(T value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    @Override
+    public T pop() {
+        T value = peek();
+        elements[--size] = null; // Let the garbage collector have it
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return (T) elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -2,6 +2,7 @@ package nl.han.ica.datastructures;
 
 public class HANLinkedList<T> implements IHANLinkedList<T> {
     private ListNode<T> head = null;
+    private int size = 0;
 
     public HANLinkedList() {
     }
@@ -13,11 +14,16 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
         } else {
             head = new ListNode<T>(value, head);
         }
+        size++;
     }
 
     @Override
     public void removeFirst() {
+        if (head == null) {
+            throw new RuntimeException("HEAD IS NULL, HANLinkedList is empty");
+        }
         head = head.next;
+        size--;
     }
 
     @Override
@@ -30,15 +36,6 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
 
     @Override
     public int getSize() {
-        int size = 0;
-        ListNode<T> current = head;
-        if (current == null) {
-            return 0;
-        }
-        while (current.next != null) {
-            size++;
-            current = current.next;
-        }
         return size;
     }
 
@@ -52,28 +49,54 @@ public class HANLinkedList<T> implements IHANLinkedList<T> {
 
     @Override
     public void clear() {
-
+        head = null;
+        size = 0;
     }
 
     @Override
     public void insert(int index, T value) {
-
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        if (index == 0) {
+            addFirst(value);
+            return;
+        }
+        ListNode<T> previous = node(index - 1);
+        previous.next = new ListNode<T>(value, previous.next);
+        size++;
     }
 
     @Override
     public void delete(int pos) {
-
+        checkPosition(pos);
+        if (pos == 0) {
+            removeFirst();
+            return;
+        }
+        ListNode<T> previous = node(pos - 1);
+        previous.next = previous.next.next;
+        size--;
     }
 
     @Override
     public T get(int pos) {
-        ListNode<T> tmp = head;
+        checkPosition(pos);
+        return node(pos).element;
+    }
 
-        for (int i = 0; i <= pos; i++) {
+    private ListNode<T> node(int pos) {
+        ListNode<T> tmp = head;
+        for (int i = 0; i < pos; i++) {
             tmp = tmp.next;
         }
+        return tmp;
+    }
 
-        return tmp.element;
+    private void checkPosition(int pos) {
+        if (pos < 0 || pos >= size) {
+            throw new IndexOutOfBoundsException("Position " + pos + ", size " + size);
+        }
     }
 
     private static class ListNode<T> {
@@ -0,0 +1,276 @@
+package nl.han.ica.datastructures;
+
+import java.util.Objects;
+
+/**
+ * Immutable hash map, implemented as a hash array mapped trie.
+ *
+ * Every level of the trie consumes 5 bits of the hash, so lookups and updates take O(log32 n).
+ * An update copies only the path from the root to the changed entry and shares everything else
+ * with the previous version, which stays valid. Keeping a reference to a version is therefore an
+ * O(1) snapshot.
+ *
+ * Keys and values may not be null.
+ */
+public final class HANPersistentMap<K, V> {
+    private static final int BITS = 5;
+    private static final HANPersistentMap<?, ?> EMPTY = new HANPersistentMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HANPersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> HANPersistentMap<K, V> empty() {
+        return (HANPersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @return the value of key, or null when key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return (V) root.find(key, hash(key), 0);
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return a map with key bound to value; this map when key was already bound to value
+     */
+    public HANPersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Change change = new Change();
+        Node newRoot = root.put(key, value, hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new HANPersistentMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * @return a map without key; this map when key was not in the map
+     */
+    public HANPersistentMap<K, V> remove(K key) {
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new HANPersistentMap<>(newRoot, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        // Spread the high bits, the first levels of the trie only look at the low bits
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 0x1f);
+    }
+
+    private static Object[] copyAndSet(Object[] array, int index, Object value) {
+        Object[] copy = array.clone();
+        copy[index] = value;
+        return copy;
+    }
+
+    private static Object[] removePair(Object[] array, int pair) {
+        Object[] copy = new Object[array.length - 2];
+        System.arraycopy(array, 0, copy, 0, 2 * pair);
+        System.arraycopy(array, 2 * (pair + 1), copy, 2 * pair, copy.length - 2 * pair);
+        return copy;
+    }
+
+    private static final class Change {
+        boolean added;
+    }
+
+    private abstract static class Node {
+        abstract Object find(Object key, int hash, int shift);
+
+        /**
+         * @return the changed node, or this node when nothing changed
+         */
+        abstract Node put(Object key, Object value, int hash, int shift, Change change);
+
+        /**
+         * @return the changed node, this node when key was not found, or null when the node became empty
+         */
+        abstract Node remove(Object key, int hash, int shift);
+    }
+
+    /**
+     * Node with up to 32 slots, one per value of the 5 hash bits at its level. Only occupied slots
+     * are stored: slot i is at position bitCount(bitmap below bit i). Every slot takes two array
+     * elements, either a key and its value, or null and a child node.
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = index(bit);
+            Object existingKey = array[2 * index];
+            Object valueOrNode = array[2 * index + 1];
+            if (existingKey == null) {
+                return ((Node) valueOrNode).find(key, hash, shift + BITS);
+            }
+            return key.equals(existingKey) ? valueOrNode : null;
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, 2 * index);
+                copy[2 * index] = key;
+                copy[2 * index + 1] = value;
+                System.arraycopy(array, 2 * index, copy, 2 * (index + 1), array.length - 2 * index);
+                change.added = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object existingKey = array[2 * index];
+            Object valueOrNode = array[2 * index + 1];
+            if (existingKey == null) {
+                Node child = (Node) valueOrNode;
+                Node newChild = child.put(key, value, hash, shift + BITS, change);
+                return newChild == child ? this : new BitmapNode(bitmap, copyAndSet(array, 2 * index + 1, newChild));
+            }
+            if (key.equals(existingKey)) {
+                return value == valueOrNode ? this : new BitmapNode(bitmap, copyAndSet(array, 2 * index + 1, value));
+            }
+
+            // Two keys share this slot: push both one level down
+            Node child = pair(existingKey, valueOrNode, key, value, hash, shift + BITS, change);
+            Object[] copy = copyAndSet(array, 2 * index, null);
+            copy[2 * index + 1] = child;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        private static Node pair(Object key1, Object value1, Object key2, Object value2, int hash2, int shift, Change change) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                change.added = true;
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            return EMPTY.put(key1, value1, hash1, shift, change).put(key2, value2, hash2, shift, change);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object existingKey = array[2 * index];
+            Object valueOrNode = array[2 * index + 1];
+            if (existingKey == null) {
+                Node child = (Node) valueOrNode;
+                Node newChild = child.remove(key, hash, shift + BITS);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild != null) {
+                    return new BitmapNode(bitmap, copyAndSet(array, 2 * index + 1, newChild));
+                }
+            } else if (!key.equals(existingKey)) {
+                return this;
+            }
+            return bitmap == bit ? null : new BitmapNode(bitmap ^ bit, removePair(array, index));
+        }
+    }
+
+    /**
+     * Leaf for keys whose full hashes are equal, searched linearly.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int index = indexOf(key);
+            return index < 0 ? null : array[index + 1];
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                // Different hash: this leaf becomes a child of a bitmap node at the current level
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this}).put(key, value, hash, shift, change);
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                return value == array[index + 1] ? this : new CollisionNode(hash, copyAndSet(array, index + 1, value));
+            }
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            change.added = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            return array.length == 2 ? null : new CollisionNode(hash, removePair(array, index / 2));
+        }
+    }
+}
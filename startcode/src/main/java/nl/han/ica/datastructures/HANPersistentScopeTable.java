@@ -0,0 +1,146 @@
+package nl.han.ica.datastructures;
+
+import nl.han.ica.trace.Trace;
+import nl.han.ica.trace.TraceCategory;
+import nl.han.ica.trace.TraceLevel;
+
+/**
+ * Scoped symbol table on top of a {@link HANPersistentMap}, which can be forked in O(1).
+ *
+ * One map holds the innermost binding of every name and a binding links to the binding it shadows,
+ * so a lookup does not search the scopes one by one. The map, the bindings and the per-scope lists of bound names
+ * are all immutable, so {@link #fork()} only copies two references. Lookups and updates take
+ * O(log32 n) instead of O(1).
+ */
+public class HANPersistentScopeTable<K, V> implements IHANSymbolTable<K, V> {
+    private HANPersistentMap<K, Binding<V>> bindings;
+    // Innermost scope, null when no scope has been pushed
+    private Scope<K> scope;
+
+    public HANPersistentScopeTable() {
+        this(HANPersistentMap.empty(), null);
+    }
+
+    private HANPersistentScopeTable(HANPersistentMap<K, Binding<V>> bindings, Scope<K> scope) {
+        this.bindings = bindings;
+        this.scope = scope;
+    }
+
+    /**
+     * Creates a table with the same scopes and bindings as this one. Changes to either table,
+     * including updates of variables in enclosing scopes, are not visible in the other.
+     * @return independent copy of this table
+     */
+    public HANPersistentScopeTable<K, V> fork() {
+        return new HANPersistentScopeTable<>(bindings, scope);
+    }
+
+    @Override
+    public void pushScope() {
+        scope = new Scope<>(scope, null, getTotalAmountOfScopes() + 1);
+        if (Trace.SCOPE) {
+            Trace.log(TraceCategory.SCOPE, TraceLevel.DEBUG, "Scope pushed. Total scopes: " + scope.depth);
+        }
+    }
+
+    @Override
+    public void popScope() {
+        if (scope == null) {
+            throw new IllegalStateException("No scopes available to pop.");
+        }
+        for (Names<K> names = scope.names; names != null; names = names.next) {
+            Binding<V> shadowed = bindings.get(names.key).shadowed;
+            bindings = shadowed == null ? bindings.remove(names.key) : bindings.put(names.key, shadowed);
+        }
+        scope = scope.parent;
+        if (Trace.SCOPE) {
+            Trace.log(TraceCategory.SCOPE, TraceLevel.DEBUG, "Scope popped. Total scopes: " + getTotalAmountOfScopes());
+        }
+    }
+
+    @Override
+    public void putVariable(K key, V value) {
+        Binding<V> binding = bindings.get(key);
+        if (binding != null) {
+            bindings = bindings.put(key, new Binding<>(value, binding.depth, binding.shadowed));
+            if (Trace.SCOPE) {
+                Trace.log(TraceCategory.SCOPE, TraceLevel.DEBUG, "Variable " + key + " updated in scope " + binding.depth);
+            }
+        } else {
+            define(key, value);
+        }
+    }
+
+    /**
+     * Binds key in the innermost scope, shadowing a binding of key in an outer scope
+     * @param key variable name
+     * @param value initial value
+     * @throws IllegalStateException when no scope has been pushed
+     */
+    public void define(K key, V value) {
+        if (scope == null) {
+            throw new IllegalStateException("No scopes available to put the variable.");
+        }
+        Binding<V> binding = bindings.get(key);
+        if (binding != null && binding.depth == scope.depth) {
+            bindings = bindings.put(key, new Binding<>(value, binding.depth, binding.shadowed));
+            return;
+        }
+        bindings = bindings.put(key, new Binding<>(value, scope.depth, binding));
+        scope = new Scope<>(scope.parent, new Names<>(key, scope.names), scope.depth);
+        if (Trace.SCOPE) {
+            Trace.log(TraceCategory.SCOPE, TraceLevel.DEBUG, "Variable " + key + " added to scope " + scope.depth);
+        }
+    }
+
+    @Override
+    public V getVariable(K key) {
+        Binding<V> binding = bindings.get(key);
+        if (Trace.LOOKUP) {
+            Trace.log(TraceCategory.LOOKUP, TraceLevel.DEBUG, binding == null
+                    ? "Variable " + key + " not found in any scope."
+                    : "Variable " + key + " found in scope " + binding.depth);
+        }
+        return binding == null ? null : binding.value;
+    }
+
+    @Override
+    public int getTotalAmountOfScopes() {
+        return scope == null ? 0 : scope.depth;
+    }
+
+    private static final class Binding<V> {
+        final V value;
+        final int depth;
+        final Binding<V> shadowed;
+
+        Binding(V value, int depth, Binding<V> shadowed) {
+            this.value = value;
+            this.depth = depth;
+            this.shadowed = shadowed;
+        }
+    }
+
+    private static final class Scope<K> {
+        final Scope<K> parent;
+        // Names bound in this scope, most recent first
+        final Names<K> names;
+        final int depth;
+
+        Scope(Scope<K> parent, Names<K> names, int depth) {
+            this.parent = parent;
+            this.names = names;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Names<K> {
+        final K key;
+        final Names<K> next;
+
+        Names(K key, Names<K> next) {
+            this.key = key;
+            this.next = next;
+        }
+    }
+}
@@ -38,13 +38,13 @@ public interface IHANLinkedList<T> {
     void removeFirst();
 
     /**
-     * Returns first element in O(n) time
+     * Returns first element in O(1) time
      * @return first element
      */
     T getFirst();
 
     /**
-     * Determines size of the list, equals the number of stored items but not the header node
+     * Determines size of the list in O(1) time, equals the number of stored items
      * @return number of items in list
      */
     int getSize();
@@ -0,0 +1,36 @@
+package nl.han.ica.datastructures;
+
+public interface IHANSymbolTable<K, V> {
+    /**
+     * Opens a new, innermost scope
+     */
+    void pushScope();
+
+    /**
+     * Closes the innermost scope and drops the variables bound in it
+     * @throws IllegalStateException when no scope has been pushed
+     */
+    void popScope();
+
+    /**
+     * Assigns value to key. A variable that is already bound in any scope is updated in that scope,
+     * otherwise it is bound in the innermost scope
+     * @param key variable name
+     * @param value new value
+     * @throws IllegalStateException when no scope has been pushed
+     */
+    void putVariable(K key, V value);
+
+    /**
+     * Looks up the value of key in all open scopes
+     * @param key variable name
+     * @return the value, or null when key is not bound
+     */
+    V getVariable(K key);
+
+    /**
+     * Determines the number of pushed scopes that have not been popped yet
+     * @return number of open scopes
+     */
+    int getTotalAmountOfScopes();
+}
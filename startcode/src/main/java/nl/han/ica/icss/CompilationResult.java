@@ -0,0 +1,78 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable outcome of a single compilation: the AST, the diagnostics, the generated CSS
+ * and the time and memory spent in each phase. The AST is owned by the result and should
+ * not be modified by callers.
+ */
+public final class CompilationResult {
+
+    private final AST ast;
+    private final List<String> errors;
+    private final boolean generated;
+    private final String css;
+    private final PhaseMetrics metrics;
+
+    CompilationResult(AST ast, List<String> errors, boolean generated, String css, PhaseMetrics metrics) {
+        this.ast = ast;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        this.generated = generated;
+        this.css = css;
+        this.metrics = metrics;
+    }
+
+    CompilationResult withCss(String css) {
+        return new CompilationResult(ast, errors, generated, css, metrics);
+    }
+
+    /**
+     * @return the AST after the last phase that ran, null for {@link Compiler#compileFlat}
+     */
+    public AST getAST() {
+        return ast;
+    }
+
+    /**
+     * @return syntax and semantic errors, in source order
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the generated CSS, or null when compilation stopped before generation
+     * or the CSS was streamed to an output
+     */
+    public String getCss() {
+        return css;
+    }
+
+    public boolean isSuccess() {
+        return errors.isEmpty() && generated;
+    }
+
+    /**
+     * @return wall time, CPU time and allocated bytes of each phase
+     */
+    public PhaseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param phase the phase to look up
+     * @return wall time spent in the phase, 0 when it did not run
+     */
+    public long getPhaseNanos(Phase phase) {
+        return metrics.getWallNanos(phase);
+    }
+
+    public long getTotalNanos() {
+        return metrics.getTotalWallNanos();
+    }
+}
@@ -0,0 +1,323 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.DiagnosticsSink;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.flat.FlatAst;
+import nl.han.ica.icss.flat.FlatAstListener;
+import nl.han.ica.icss.flat.FlatChecker;
+import nl.han.ica.icss.flat.FlatEvaluator;
+import nl.han.ica.icss.flat.FlatGenerator;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateless compiler facade. All state of a compilation lives on the stack of the calling
+ * thread, so a single instance can be shared by any number of threads.
+ */
+public final class Compiler {
+
+    /**
+     * Version of the compiler.
+     */
+    public static final String VERSION = "2020.1.0-September";
+
+    private static final ParserStats PARSER_STATS = new ParserStats();
+    // Bundled example that uses every language feature
+    private static final String WARM_UP_RESOURCE = "level3.icss";
+
+    private final int errorBudget;
+
+    public Compiler() {
+        this(DiagnosticsSink.UNLIMITED);
+    }
+
+    /**
+     * @param errorBudget number of semantic errors after which checking stops
+     */
+    public Compiler(int errorBudget) {
+        if (errorBudget < 1) {
+            throw new IllegalArgumentException("Error budget must be at least 1, not " + errorBudget);
+        }
+        this.errorBudget = errorBudget;
+    }
+
+    /**
+     * Runs parse, check, transform and generate. Compilation stops after the first phase that reports errors.
+     * @param input ICSS source text
+     * @return the outcome of the compilation
+     */
+    public CompilationResult compile(String input) {
+        StringBuilder css = new StringBuilder();
+        try {
+            CompilationResult result = compile(input, css);
+            return result.isSuccess() ? result.withCss(css.toString()) : result;
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Like {@link #compile(String)}, but streams the CSS to out instead of keeping it in the result.
+     * Nothing is written to out when compilation fails before generation.
+     * @param input ICSS source text
+     * @param out destination of the generated CSS, not flushed or closed
+     * @return the outcome of the compilation, without CSS
+     * @throws IOException when writing to out fails
+     */
+    public CompilationResult compile(String input, Appendable out) throws IOException {
+        PhaseRecorder recorder = new PhaseRecorder();
+        List<String> errors = new ArrayList<>();
+
+        AST ast = parse(input, errors, recorder);
+        if (!errors.isEmpty()) {
+            return new CompilationResult(ast, errors, false, null, recorder.toMetrics());
+        }
+
+        recorder.start(Phase.CHECK);
+        check(ast, errors, new DiagnosticsSink(errorBudget));
+        recorder.stop();
+        if (!errors.isEmpty()) {
+            return new CompilationResult(ast, errors, false, null, recorder.toMetrics());
+        }
+
+        recorder.start(Phase.TRANSFORM);
+        (new Evaluator()).apply(ast);
+
+        recorder.start(Phase.GENERATE);
+        (new Generator()).generate(ast, out);
+
+        return new CompilationResult(ast, errors, true, null, recorder.toMetrics());
+    }
+
+    /**
+     * Like {@link #compile(String, Appendable)}, but on a {@link FlatAst} that is built while the
+     * input is parsed, for stylesheets that are too large for the object AST: neither a parse tree
+     * nor an object AST is built, and the tokens are not buffered. The output and the errors are
+     * the same. Lexing, parsing and building the tree are measured together as the parse phase.
+     * @param input ICSS source text
+     * @param out destination of the generated CSS, not flushed or closed
+     * @return the outcome of the compilation, without AST and CSS
+     * @throws IOException when writing to out fails
+     */
+    public CompilationResult compileFlat(String input, Appendable out) throws IOException {
+        PhaseRecorder recorder = new PhaseRecorder();
+        List<String> errors = new ArrayList<>();
+
+        recorder.start(Phase.PARSE);
+        FlatAst ast = parseFlat(input, errors);
+        recorder.stop();
+        if (!errors.isEmpty()) {
+            return new CompilationResult(null, errors, false, null, recorder.toMetrics());
+        }
+
+        recorder.start(Phase.CHECK);
+        List<SemanticError> semanticErrors = new FlatChecker().check(ast);
+        recorder.stop();
+        // The FlatChecker has no budget: report what the Checker would have found before stopping
+        for (int i = 0; i < Math.min(semanticErrors.size(), errorBudget); i++) {
+            errors.add(semanticErrors.get(i).toString());
+        }
+        if (semanticErrors.size() >= errorBudget) {
+            errors.add("ERROR: Checking stopped after " + errorBudget + " errors.");
+        }
+        if (!errors.isEmpty()) {
+            return new CompilationResult(null, errors, false, null, recorder.toMetrics());
+        }
+
+        recorder.start(Phase.TRANSFORM);
+        FlatAst evaluated = new FlatEvaluator().evaluate(ast);
+
+        recorder.start(Phase.GENERATE);
+        new FlatGenerator().generate(evaluated, out);
+
+        return new CompilationResult(null, errors, true, null, recorder.toMetrics());
+    }
+
+    /**
+     * Compiles the bundled example iterations times, so the classes of all phases are loaded and
+     * the DFA cache of the parser, which all parsers of the JVM share, is filled before the first
+     * real compile. More iterations also give the JIT time to compile the hot paths.
+     */
+    public static void warmUp(int iterations) throws IOException {
+        try (InputStream inputStream = Compiler.class.getClassLoader().getResourceAsStream(WARM_UP_RESOURCE)) {
+            if (inputStream == null) {
+                return;
+            }
+            String input = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            Compiler compiler = new Compiler();
+            for (int i = 0; i < iterations; i++) {
+                compiler.compile(input);
+            }
+        }
+    }
+
+    /**
+     * @return the parse counters of all compilers of this JVM
+     */
+    public static ParserStats getParserStats() {
+        return PARSER_STATS;
+    }
+
+    /**
+     * Lexes and parses the input and extracts the AST. Syntax errors are appended to errors.
+     * The lex, parse and AST phases are measured by recorder.
+     */
+    static AST parse(String input, List<String> errors, PhaseRecorder recorder) {
+        SyntaxErrorCollector errorCollector = new SyntaxErrorCollector(errors);
+
+        //Lex (with Antlr's generated lexer)
+        CharStream inputStream = CharStreams.fromString(input);
+        ICSSLexer lexer = new ICSSLexer(inputStream);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorCollector);
+        try {
+            // The token stream lexes on demand, fill it up front so lexing is measured separately
+            recorder.start(Phase.LEX);
+            CommonTokenStream tokens = new CommonTokenStream(lexer);
+            tokens.fill();
+
+            //Parse (with Antlr's generated parser)
+            recorder.start(Phase.PARSE);
+            ParseTree parseTree = parse(tokens, errorCollector);
+
+            //Extract AST from the Antlr parse tree
+            recorder.start(Phase.BUILD_AST);
+            ASTListener listener = new ASTListener();
+            ParseTreeWalker walker = new ParseTreeWalker();
+            walker.walk(listener, parseTree);
+
+            return listener.getAST();
+
+        } catch (RecognitionException e) {
+            errors.add(e.getMessage());
+        } catch (ParseCancellationException e) {
+            errors.add("Syntax error");
+        } finally {
+            recorder.stop();
+        }
+        return new AST();
+    }
+
+    /**
+     * Parses with SLL prediction first, which is fast but gives up on the first syntax error and
+     * cannot resolve every ambiguity. Only when it gives up the tokens are parsed again with full
+     * LL prediction and error reporting, so syntax errors are reported like before.
+     */
+    private static ParseTree parse(CommonTokenStream tokens, SyntaxErrorCollector errorCollector) {
+        ICSSParser parser = new ICSSParser(tokens);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            ParseTree parseTree = parser.stylesheet();
+            PARSER_STATS.recordParse(false);
+            return parseTree;
+        } catch (ParseCancellationException e) {
+            PARSER_STATS.recordParse(true);
+        }
+
+        tokens.seek(0);
+        parser.reset();
+        parser.addErrorListener(errorCollector);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return parser.stylesheet();
+    }
+
+    /**
+     * Parses the input into a flat tree, see {@link #compileFlat(String, Appendable)}. Like
+     * {@link #parse(CommonTokenStream, SyntaxErrorCollector)}, SLL prediction is tried first.
+     * Syntax errors are appended to errors.
+     * @return the tree, or null when the input has syntax errors
+     */
+    static FlatAst parseFlat(String input, List<String> errors) {
+        List<String> lexerErrors = new ArrayList<>();
+        ICSSParser parser = new ICSSParser(new UnbufferedTokenStream<Token>(lexer(input, lexerErrors)));
+        parser.setBuildParseTree(false);
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        FlatAstListener listener = new FlatAstListener();
+        parser.addParseListener(listener);
+        try {
+            parser.stylesheet();
+            PARSER_STATS.recordParse(false);
+            errors.addAll(lexerErrors);
+            return errors.isEmpty() ? listener.getAST() : null;
+        } catch (ParseCancellationException e) {
+            PARSER_STATS.recordParse(true);
+        }
+
+        // Error recovery can leave rules without their children, so only build the tree when full
+        // LL finds no syntax errors. The tokens are buffered: error messages quote them.
+        CommonTokenStream tokens = new CommonTokenStream(lexer(input, errors));
+        parser.setInputStream(tokens);
+        parser.removeParseListeners();
+        parser.addErrorListener(new SyntaxErrorCollector(errors));
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        parser.stylesheet();
+        if (!errors.isEmpty()) {
+            return null;
+        }
+        tokens.seek(0);
+        parser.reset();
+        listener = new FlatAstListener();
+        parser.addParseListener(listener);
+        parser.stylesheet();
+        return listener.getAST();
+    }
+
+    private static ICSSLexer lexer(String input, List<String> errors) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(input));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new SyntaxErrorCollector(errors));
+        return lexer;
+    }
+
+    /**
+     * Checks the AST. Semantic errors are reported to diagnostics and appended to errors.
+     */
+    static void check(AST ast, List<String> errors, DiagnosticsSink diagnostics) {
+        (new Checker()).check(ast, diagnostics);
+        for (SemanticError e : diagnostics.getErrors()) {
+            errors.add(e.toString());
+        }
+        if (diagnostics.isAborted()) {
+            errors.add("ERROR: Checking stopped after " + diagnostics.getErrorBudget() + " errors.");
+        }
+    }
+
+    //Catch ANTLR errors
+    private static class SyntaxErrorCollector extends BaseErrorListener {
+        private final List<String> errors;
+
+        SyntaxErrorCollector(List<String> errors) {
+            this.errors = errors;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            errors.add("Syntax error: " + msg);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.*;
+
+import java.util.*;
+
+/**
+ * Recompiles one stylesheet incrementally, at the granularity of top-level style rules and
+ * variable assignments ("chunks").
+ *
+ * Every update diffs the new source against the previous one. Chunks before and after the
+ * edited region keep their results; only the chunks in the edited region are lexed and parsed
+ * again. A chunk is checked, evaluated and generated again when its text changed or when the
+ * value of a global variable it references changed. The generated rules are then spliced
+ * together in the same order as a full compile would produce them.
+ *
+ * Whenever the incremental path cannot guarantee the same result as a full compile (syntax
+ * errors, assignments after rules, rules that reassign global variables) the update falls
+ * back to {@link Compiler}. Results carry the transformed AST on success.
+ *
+ * An IncrementalCompiler holds per-document state and is not thread-safe.
+ */
+public class IncrementalCompiler {
+
+    private final Compiler compiler = new Compiler();
+
+    private String source = "";
+    private List<Chunk> chunks;
+    private int recompiledChunks;
+
+    /**
+     * Compiles the new version of the document.
+     * @param newSource complete ICSS source text
+     * @return the outcome, equal to {@link Compiler#compile(String)} of newSource
+     */
+    public CompilationResult update(String newSource) {
+        PhaseRecorder recorder = new PhaseRecorder();
+        recompiledChunks = 0;
+
+        recorder.start(Phase.LEX);
+        List<Chunk> newChunks = chunks == null ? split(newSource, 0) : respan(newSource);
+        recorder.stop();
+
+        CompilationResult result = null;
+        if (newChunks != null) {
+            try {
+                result = compileChunks(newChunks, recorder);
+            } catch (RuntimeException e) {
+                // Let the full compile decide whether errors elsewhere prevent this failure
+                result = null;
+            }
+        }
+        if (result == null) {
+            chunks = null;
+            recompiledChunks = -1;
+            result = compiler.compile(newSource);
+        } else {
+            chunks = newChunks;
+        }
+        source = newSource;
+        return result;
+    }
+
+    /**
+     * @return the number of chunks compiled by the last update, or -1 when it was a full compile
+     */
+    public int getRecompiledChunks() {
+        return recompiledChunks;
+    }
+
+    /**
+     * Keeps the chunks outside of the edited region and splits the region itself into new chunks.
+     */
+    private List<Chunk> respan(String newSource) {
+        int oldLength = source.length();
+        int newLength = newSource.length();
+        int maxCommon = Math.min(oldLength, newLength);
+
+        int prefix = 0;
+        while (prefix < maxCommon && source.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && source.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int delta = newLength - oldLength;
+
+        // A chunk ends in ';' or '}', which never merge with the next token, so a chunk that ends
+        // within the common prefix is unaffected. A chunk in the common suffix must also keep the
+        // character before it, otherwise an edit could extend its first token.
+        int first = 0;
+        while (first < chunks.size() && chunks.get(first).end <= prefix) {
+            first++;
+        }
+        int last = first;
+        while (last < chunks.size() && chunks.get(last).start <= oldLength - suffix) {
+            last++;
+        }
+
+        int regionStart = first > 0 ? chunks.get(first - 1).end : 0;
+        int regionEnd = (last < chunks.size() ? chunks.get(last).start : oldLength) + delta;
+        List<Chunk> edited = split(newSource.substring(regionStart, regionEnd), regionStart);
+        if (edited == null) {
+            return null;
+        }
+
+        // The diff is ambiguous for insertions, so the region may contain chunks whose text did not change
+        Map<String, Deque<Chunk>> replaced = new HashMap<>();
+        for (Chunk chunk : chunks.subList(first, last)) {
+            replaced.computeIfAbsent(chunk.text, text -> new ArrayDeque<>()).add(chunk);
+        }
+
+        List<Chunk> result = new ArrayList<>(chunks.size() + edited.size());
+        result.addAll(chunks.subList(0, first));
+        for (Chunk chunk : edited) {
+            Deque<Chunk> sameText = replaced.get(chunk.text);
+            Chunk previous = sameText == null ? null : sameText.poll();
+            if (previous != null) {
+                previous.start = chunk.start;
+                previous.end = chunk.end;
+                chunk = previous;
+            }
+            result.add(chunk);
+        }
+        for (Chunk chunk : chunks.subList(last, chunks.size())) {
+            chunk.start += delta;
+            chunk.end += delta;
+            result.add(chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Splits text into top-level chunks by lexing it and tracking brace depth.
+     * @return the chunks, or null when the text does not consist of complete chunks
+     */
+    private static List<Chunk> split(String text, int offset) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(text));
+        boolean[] lexerError = {false};
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                lexerError[0] = true;
+            }
+        });
+
+        List<Chunk> result = new ArrayList<>();
+        int chunkStart = -1;
+        boolean assignment = false;
+        int depth = 0;
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            if (chunkStart < 0) {
+                chunkStart = token.getStartIndex();
+                assignment = token.getType() == ICSSLexer.CAPITAL_IDENT;
+            }
+            boolean closed = false;
+            switch (token.getType()) {
+                case ICSSLexer.OPEN_BRACE:
+                    depth++;
+                    break;
+                case ICSSLexer.CLOSE_BRACE:
+                    depth--;
+                    if (depth < 0) {
+                        return null;
+                    }
+                    closed = depth == 0 && !assignment;
+                    break;
+                case ICSSLexer.SEMICOLON:
+                    closed = depth == 0 && assignment;
+                    break;
+            }
+            if (closed) {
+                int chunkEnd = token.getStopIndex() + 1;
+                result.add(new Chunk(text.substring(chunkStart, chunkEnd), offset + chunkStart,
+                        offset + chunkEnd, assignment));
+                chunkStart = -1;
+            }
+        }
+        if (chunkStart >= 0 || lexerError[0]) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Brings every chunk up to date and splices the results together.
+     * @return the result, or null when a full compile is needed
+     */
+    private CompilationResult compileChunks(List<Chunk> newChunks, PhaseRecorder recorder) {
+        // The grammar only allows variable assignments before the first style rule
+        boolean seenRule = false;
+        for (Chunk chunk : newChunks) {
+            if (chunk.assignment && seenRule) {
+                return null;
+            }
+            seenRule |= !chunk.assignment;
+        }
+
+        Map<String, Literal> globals = new HashMap<>();
+        Set<String> globalNames = new HashSet<>();
+        for (Chunk chunk : newChunks) {
+            if (chunk.assignment) {
+                if (chunk.isStale(globals) && !compileChunk(chunk, globals, recorder)) {
+                    return null;
+                }
+                globalNames.add(chunk.name);
+                if (chunk.value != null) {
+                    globals.put(chunk.name, chunk.value);
+                }
+            } else {
+                if (chunk.isStale(globals) && !compileChunk(chunk, globals, recorder)) {
+                    return null;
+                }
+                // Reassigning a global variable inside a rule affects all following rules
+                if (!Collections.disjoint(chunk.assignedNames, globalNames)) {
+                    return null;
+                }
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (Chunk chunk : newChunks) {
+            errors.addAll(chunk.errors);
+        }
+        if (!errors.isEmpty()) {
+            Stylesheet checked = new Stylesheet();
+            for (Chunk chunk : newChunks) {
+                checked.addChild(chunk.node);
+            }
+            return new CompilationResult(new AST(checked), errors, false, null, recorder.toMetrics());
+        }
+
+        // Like a full compile: all top-level rules first, then the rules that were nested inside them
+        recorder.start(Phase.GENERATE);
+        Stylesheet transformed = new Stylesheet();
+        StringBuilder css = new StringBuilder();
+        for (Chunk chunk : newChunks) {
+            if (!chunk.assignment) {
+                appendRule(css, chunk.ruleCss);
+                transformed.addChild(chunk.rule);
+            }
+        }
+        for (Chunk chunk : newChunks) {
+            if (!chunk.assignment) {
+                for (int i = 0; i < chunk.nestedRules.size(); i++) {
+                    appendRule(css, chunk.nestedCss.get(i));
+                    transformed.addChild(chunk.nestedRules.get(i));
+                }
+            }
+        }
+        recorder.stop();
+
+        return new CompilationResult(new AST(transformed), errors, true, css.toString(), recorder.toMetrics());
+    }
+
+    private static void appendRule(StringBuilder css, String rule) {
+        // Rules are separated by an empty line.
+        if (css.length() > 0) {
+            css.append('\n');
+        }
+        css.append(rule);
+    }
+
+    /**
+     * Parses, checks, evaluates and generates a single chunk against the global variables.
+     * @return false when the chunk does not parse on its own
+     */
+    private boolean compileChunk(Chunk chunk, Map<String, Literal> globals, PhaseRecorder recorder) {
+        recompiledChunks++;
+
+        // The evaluator leaves the parsed chunk as it is, so a chunk is only parsed when it is new
+        if (!chunk.compiled) {
+            List<String> syntaxErrors = new ArrayList<>();
+            AST parsed = Compiler.parse(chunk.text, syntaxErrors, recorder);
+            if (!syntaxErrors.isEmpty() || parsed.root.body.size() != 1) {
+                return false;
+            }
+            ASTNode node = parsed.root.body.get(0);
+            if (chunk.assignment != (node instanceof VariableAssignment)) {
+                return false;
+            }
+            chunk.compiled = true;
+            chunk.node = node;
+            if (chunk.assignment) {
+                chunk.name = ((VariableAssignment) node).name.name;
+            }
+            chunk.references = new HashSet<>();
+            chunk.assignedNames = new HashSet<>();
+            collectNames(node, chunk.references, chunk.assignedNames);
+        }
+        ASTNode node = chunk.node;
+        chunk.inputs = new HashMap<>();
+        for (String name : chunk.references) {
+            chunk.inputs.put(name, globals.get(name));
+        }
+
+        // Referenced globals are passed in as assignments of their (already evaluated) values
+        Stylesheet stylesheet = new Stylesheet();
+        for (String name : chunk.references) {
+            Literal value = globals.get(name);
+            if (value != null) {
+                stylesheet.addChild((new VariableAssignment())
+                        .addChild(new VariableReference(name))
+                        .addChild(value));
+            }
+        }
+        stylesheet.addChild(node);
+        AST ast = new AST(stylesheet);
+
+        recorder.start(Phase.CHECK);
+        chunk.errors = new ArrayList<>();
+        for (SemanticError error : (new Checker()).check(ast)) {
+            chunk.errors.add(error.toString());
+        }
+        recorder.stop();
+
+        chunk.value = null;
+        chunk.rule = null;
+        chunk.ruleCss = null;
+        chunk.nestedRules = Collections.emptyList();
+        chunk.nestedCss = Collections.emptyList();
+        if (!chunk.errors.isEmpty()) {
+            return true;
+        }
+
+        recorder.start(Phase.TRANSFORM);
+        Evaluator evaluator = new Evaluator();
+        Stylesheet evaluated = evaluator.evaluate(ast).root;
+        recorder.stop();
+
+        if (chunk.assignment) {
+            chunk.value = evaluator.getGlobal(((VariableAssignment) node).name);
+            return true;
+        }
+
+        // The evaluator leaves the rule followed by the rules that were nested inside it
+        recorder.start(Phase.GENERATE);
+        chunk.rule = evaluated.body.get(0);
+        chunk.ruleCss = generateRule(chunk.rule);
+        chunk.nestedRules = new ArrayList<>(evaluated.body.subList(1, evaluated.body.size()));
+        chunk.nestedCss = new ArrayList<>(chunk.nestedRules.size());
+        for (ASTNode nested : chunk.nestedRules) {
+            chunk.nestedCss.add(generateRule(nested));
+        }
+        recorder.stop();
+        return true;
+    }
+
+    private static String generateRule(ASTNode rule) {
+        Stylesheet stylesheet = new Stylesheet();
+        stylesheet.addChild(rule);
+        return (new Generator()).generate(new AST(stylesheet));
+    }
+
+    private static void collectNames(ASTNode node, Set<String> references, Set<String> assignedNames) {
+        if (node instanceof VariableReference) {
+            references.add(((VariableReference) node).name);
+        } else if (node instanceof VariableAssignment) {
+            assignedNames.add(((VariableAssignment) node).name.name);
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectNames(node.getChild(i), references, assignedNames);
+        }
+    }
+
+    /**
+     * A top-level style rule or variable assignment, with the results of its last compilation.
+     */
+    private static class Chunk {
+        final String text;
+        final boolean assignment;
+        int start;
+        int end;
+
+        boolean compiled = false;
+        String name;
+        Set<String> references = Collections.emptySet();
+        Set<String> assignedNames = Collections.emptySet();
+        Map<String, Literal> inputs = Collections.emptyMap();
+
+        ASTNode node;
+        List<String> errors = Collections.emptyList();
+        Literal value;
+        // The evaluated rule, without the rules nested in it
+        ASTNode rule;
+        String ruleCss;
+        List<ASTNode> nestedRules = Collections.emptyList();
+        List<String> nestedCss = Collections.emptyList();
+
+        Chunk(String text, int start, int end, boolean assignment) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.assignment = assignment;
+        }
+
+        /**
+         * @return true when the chunk has not been compiled yet or a referenced global changed
+         */
+        boolean isStale(Map<String, Literal> globals) {
+            if (!compiled) {
+                return true;
+            }
+            for (String reference : references) {
+                if (!Objects.equals(inputs.get(reference), globals.get(reference))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
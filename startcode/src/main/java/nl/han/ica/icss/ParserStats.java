@@ -0,0 +1,38 @@
+package nl.han.ica.icss;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often {@link Compiler} parses input and how often the fast SLL parse fails and the
+ * input is parsed again with full LL. Shared by all compilers of the JVM, see
+ * {@link Compiler#getParserStats()}.
+ */
+public final class ParserStats {
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    ParserStats() {
+    }
+
+    void recordParse(boolean fallback) {
+        parses.increment();
+        if (fallback) {
+            fallbacks.increment();
+        }
+    }
+
+    /**
+     * @return the number of parses
+     */
+    public long getParses() {
+        return parses.sum();
+    }
+
+    /**
+     * @return the number of parses that fell back to full LL, because of a syntax error or an
+     * ambiguity SLL cannot resolve
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
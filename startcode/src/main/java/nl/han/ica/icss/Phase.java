@@ -0,0 +1,26 @@
+package nl.han.ica.icss;
+
+/**
+ * The phases of the compiler pipeline, in execution order.
+ */
+public enum Phase {
+    LEX("lex"),
+    PARSE("parse"),
+    BUILD_AST("ast"),
+    CHECK("check"),
+    TRANSFORM("transform"),
+    GENERATE("generate");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return short lower case name, used in summaries and JFR events
+     */
+    public String getLabel() {
+        return label;
+    }
+}
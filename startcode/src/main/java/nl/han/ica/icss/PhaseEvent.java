@@ -0,0 +1,26 @@
+package nl.han.ica.icss;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event emitted for every compiler phase. Disabled events cost next to nothing; enable them with
+ * -XX:StartFlightRecording:settings=profile or by enabling "nl.han.ica.icss.Phase" in a recording.
+ */
+@Name("nl.han.ica.icss.Phase")
+@Label("ICSS Compiler Phase")
+@Category("ICSS")
+@Description("Time and allocation of a single phase of an ICSS compilation")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("CPU Time")
+    @Timespan
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
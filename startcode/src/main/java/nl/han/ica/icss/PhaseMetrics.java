@@ -0,0 +1,102 @@
+package nl.han.ica.icss;
+
+import java.util.StringJoiner;
+
+/**
+ * Immutable wall time, CPU time and allocated bytes per compiler phase. CPU time and allocation
+ * are -1 when the JVM cannot measure them.
+ */
+public final class PhaseMetrics {
+
+    private final boolean[] ran;
+    private final long[] wallNanos;
+    private final long[] cpuNanos;
+    private final long[] allocatedBytes;
+
+    PhaseMetrics(boolean[] ran, long[] wallNanos, long[] cpuNanos, long[] allocatedBytes) {
+        this.ran = ran.clone();
+        this.wallNanos = wallNanos.clone();
+        this.cpuNanos = cpuNanos == null ? null : cpuNanos.clone();
+        this.allocatedBytes = allocatedBytes == null ? null : allocatedBytes.clone();
+    }
+
+    /**
+     * @return whether the phase ran at least once
+     */
+    public boolean hasRun(Phase phase) {
+        return ran[phase.ordinal()];
+    }
+
+    /**
+     * @return wall time spent in the phase, 0 when it did not run
+     */
+    public long getWallNanos(Phase phase) {
+        return wallNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return CPU time of the compiling thread in the phase, -1 when not available
+     */
+    public long getCpuNanos(Phase phase) {
+        return cpuNanos == null ? -1 : cpuNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return bytes allocated by the compiling thread in the phase, -1 when not available
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes == null ? -1 : allocatedBytes[phase.ordinal()];
+    }
+
+    public long getTotalWallNanos() {
+        return sum(wallNanos);
+    }
+
+    public long getTotalCpuNanos() {
+        return cpuNanos == null ? -1 : sum(cpuNanos);
+    }
+
+    public long getTotalAllocatedBytes() {
+        return allocatedBytes == null ? -1 : sum(allocatedBytes);
+    }
+
+    /**
+     * @return one line with wall time, CPU time and allocation of every phase that ran, e.g.
+     * "lex 0.05 ms / 0.05 ms cpu / 12 KiB, parse ..., total ..."
+     */
+    public String getSummary() {
+        StringJoiner summary = new StringJoiner(", ");
+        for (Phase phase : Phase.values()) {
+            if (hasRun(phase)) {
+                summary.add(phase.getLabel() + " " + format(getWallNanos(phase), getCpuNanos(phase),
+                        getAllocatedBytes(phase)));
+            }
+        }
+        summary.add("total " + format(getTotalWallNanos(), getTotalCpuNanos(), getTotalAllocatedBytes()));
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+
+    private static String format(long wall, long cpu, long allocated) {
+        StringBuilder result = new StringBuilder(String.format("%.2f ms", wall / 1_000_000.0));
+        if (cpu >= 0) {
+            result.append(String.format(" / %.2f ms cpu", cpu / 1_000_000.0));
+        }
+        if (allocated >= 0) {
+            result.append(" / ").append((allocated + 1023) / 1024).append(" KiB");
+        }
+        return result.toString();
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,97 @@
+package nl.han.ica.icss;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures wall time, CPU time and allocated bytes of the phases run by the current thread.
+ * Running a phase more than once adds up its measurements. Every phase is also reported as a
+ * {@link PhaseEvent}.
+ *
+ * Not thread-safe: a recorder belongs to a single compilation.
+ */
+final class PhaseRecorder {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // The allocation counter is a HotSpot extension
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    private final long[] wallNanos = new long[Phase.values().length];
+    private final long[] cpuNanos = new long[Phase.values().length];
+    private final long[] allocatedBytes = new long[Phase.values().length];
+    private final boolean[] ran = new boolean[Phase.values().length];
+
+    private Phase current;
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+    private PhaseEvent event;
+
+    /**
+     * Starts measuring phase, stopping the phase that is running.
+     */
+    void start(Phase phase) {
+        stop();
+        current = phase;
+        event = new PhaseEvent();
+        event.begin();
+        allocatedStart = allocatedBytes();
+        cpuStart = cpuNanos();
+        wallStart = System.nanoTime();
+    }
+
+    /**
+     * Stops the running phase, if any.
+     */
+    void stop() {
+        if (current == null) {
+            return;
+        }
+        long wall = System.nanoTime() - wallStart;
+        long cpu = cpuNanos() - cpuStart;
+        long allocated = allocatedBytes() - allocatedStart;
+
+        int i = current.ordinal();
+        ran[i] = true;
+        wallNanos[i] += wall;
+        cpuNanos[i] += cpu;
+        allocatedBytes[i] += allocated;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = current.getLabel();
+            event.cpuTime = cpu;
+            event.allocated = allocated;
+            event.commit();
+        }
+        current = null;
+        event = null;
+    }
+
+    /**
+     * Stops the running phase and returns what has been measured so far.
+     */
+    PhaseMetrics toMetrics() {
+        stop();
+        return new PhaseMetrics(ran, wallNanos, cpuAvailable() ? cpuNanos : null,
+                allocationAvailable() ? allocatedBytes : null);
+    }
+
+    private static boolean cpuAvailable() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    private static boolean allocationAvailable() {
+        return ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemorySupported()
+                && ALLOCATIONS.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static long cpuNanos() {
+        return cpuAvailable() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return allocationAvailable() ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+}
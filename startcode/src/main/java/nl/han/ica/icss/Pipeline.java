@@ -1,31 +1,26 @@
 package nl.han.ica.icss;
 
 import nl.han.ica.icss.ast.AST;
-import nl.han.ica.icss.checker.Checker;
-import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.checker.DiagnosticsSink;
 import nl.han.ica.icss.generator.Generator;
-import nl.han.ica.icss.parser.ASTListener;
-import nl.han.ica.icss.parser.ICSSLexer;
-import nl.han.ica.icss.parser.ICSSParser;
 import nl.han.ica.icss.transforms.Evaluator;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.atn.ATNConfigSet;
-import org.antlr.v4.runtime.dfa.DFA;
-import org.antlr.v4.runtime.misc.ParseCancellationException;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.List;
 
-public class Pipeline implements ANTLRErrorListener {
+/**
+ * Stateful, step-by-step driver of the compiler phases used by the GUI.
+ * For concurrent or headless use see {@link Compiler}.
+ */
+public class Pipeline {
 
     private AST ast;
     private boolean parsed = false;
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    private DiagnosticsSink diagnostics = new DiagnosticsSink();
+    private PhaseRecorder recorder = new PhaseRecorder();
 
     public Pipeline() {
         errors = new ArrayList<>();
@@ -37,6 +32,12 @@ public class Pipeline implements ANTLRErrorListener {
     public List<String> getErrors() {
         return errors;
     }
+    /**
+     * @return the semantic errors of the last {@link #check()}, with the nodes they are about
+     */
+    public DiagnosticsSink getDiagnostics() {
+        return diagnostics;
+    }
     public boolean isParsed() {
         return parsed;
     }
@@ -47,39 +48,18 @@ public class Pipeline implements ANTLRErrorListener {
         return transformed;
     }
 
-    public void parseString(String input) {
+    /**
+     * @return time and allocation of the phases run since the last {@link #parseString(String)}
+     */
+    public PhaseMetrics getMetrics() {
+        return recorder.toMetrics();
+    }
 
-        //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
-        ICSSLexer lexer = new ICSSLexer(inputStream);
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(this);
+    public void parseString(String input) {
         errors.clear();
-        try {
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-
-            //Parse (with Antlr's generated parser)
-            ICSSParser parser = new ICSSParser(tokens);
-            parser.removeErrorListeners();
-            parser.addErrorListener(this);
-
-            ParseTree parseTree = parser.stylesheet();
-
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
-
-            this.ast = listener.getAST();
-
-        } catch (RecognitionException e) {
-            this.ast = new AST();
-            errors.add(e.getMessage());
-
-        } catch (ParseCancellationException e) {
-            this.ast = new AST();
-            errors.add("Syntax error");
-        }
+        recorder = new PhaseRecorder();
+        this.ast = Compiler.parse(input, errors, recorder);
+        diagnostics = new DiagnosticsSink();
         parsed = errors.isEmpty();
         checked = transformed = false;
     }
@@ -87,18 +67,15 @@ public class Pipeline implements ANTLRErrorListener {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+            int errorsBefore = errors.size();
+            diagnostics = new DiagnosticsSink();
+            recorder.start(Phase.CHECK);
+            Compiler.check(this.ast, errors, diagnostics);
+            recorder.stop();
 
-            ArrayList<SemanticError> errors = this.ast.getErrors();
-            if (!errors.isEmpty()) {
-                for (SemanticError e : errors) {
-                    this.errors.add(e.toString());
-                }
-            }
-
-            checked = errors.isEmpty();
+            checked = errors.size() == errorsBefore;
             transformed = false;
-            return errors.isEmpty();
+            return checked;
     }
 
     public void clearErrors(){
@@ -109,35 +86,17 @@ public class Pipeline implements ANTLRErrorListener {
         if(ast == null)
             return;
 
+        recorder.start(Phase.TRANSFORM);
         (new Evaluator()).apply(ast);
-
+        recorder.stop();
 
         transformed = errors.isEmpty();
     }
     public String generate() {
         Generator generator = new Generator();
-        return generator.generate(ast);
-    }
-
-    //Catch ANTLR errors
-    @Override
-    public void reportAmbiguity(Parser arg0, DFA arg1, int arg2, int arg3,
-                                boolean arg4, BitSet arg5, ATNConfigSet arg6) {
-    }
-
-    @Override
-    public void reportAttemptingFullContext(Parser arg0, DFA arg1, int arg2,
-                                            int arg3, BitSet arg4, ATNConfigSet arg5) {
-    }
-
-    @Override
-    public void reportContextSensitivity(Parser arg0, DFA arg1, int arg2,
-                                         int arg3, int arg4, ATNConfigSet arg5) {
-    }
-
-    @Override
-    public void syntaxError(Recognizer<?, ?> arg0, Object arg1, int arg2,
-                            int arg3, String arg4, RecognitionException arg5) {
-        errors.add("Syntax error: " + arg4);
+        recorder.start(Phase.GENERATE);
+        String css = generator.generate(ast);
+        recorder.stop();
+        return css;
     }
 }
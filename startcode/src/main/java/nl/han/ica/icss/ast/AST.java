@@ -1,8 +1,5 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Objects;
 
@@ -19,19 +16,6 @@ public class AST {
 	public void setRoot(Stylesheet stylesheet) {
 		root = stylesheet;
 	}
-    public ArrayList<SemanticError> getErrors() {
-	    ArrayList<SemanticError> errors = new ArrayList<>();
-        collectErrors(errors,root);
-        return errors;
-    }
-    private void collectErrors(ArrayList<SemanticError> errors, ASTNode node) {
-	    if(node.hasError()) {
-	        errors.add(node.getError());
-        }
-        for(ASTNode child: node.getChildren()) {
-	        collectErrors(errors,child);
-        }
-    }
 	@Override
 	public String toString() {
 		return root.toString();
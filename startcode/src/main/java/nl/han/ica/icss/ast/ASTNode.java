@@ -1,13 +1,11 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
 import java.util.ArrayList;
-import java.util.List;
 
 public class ASTNode {
 
-    private SemanticError error = null;
+    // Structural hash of an interned node, 0 for nodes that can still change
+    private int hash;
 
     /*
      This method is used in the GUI to create an appropriate label
@@ -24,6 +22,19 @@ public class ASTNode {
     public ArrayList<ASTNode> getChildren() {
         return new ArrayList<>();
     }
+    /*
+     Number of children, in the order of getChildren(). Together with getChild this walks
+     the tree without building a list of children for every node.
+     */
+    public int getChildCount() {
+        return 0;
+    }
+    /*
+     The child at index, in the order of getChildren().
+     */
+    public ASTNode getChild(int index) {
+        throw childIndexOutOfBounds(index);
+    }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
@@ -38,16 +49,35 @@ public class ASTNode {
         return this;
     }
 
-    public SemanticError getError() {
-        return this.error;
+    protected IndexOutOfBoundsException childIndexOutOfBounds(int index) {
+        return new IndexOutOfBoundsException("Child " + index + " of " + getNodeLabel() + " with " + getChildCount() + " children");
     }
 
-    public void setError(String description) {
-        this.error = new SemanticError(description);
+    /*
+     Child count and indexed access for nodes with two optional children, like an operation.
+     */
+    protected static int countPresent(ASTNode first, ASTNode second) {
+        return (first != null ? 1 : 0) + (second != null ? 1 : 0);
     }
 
-    public boolean hasError() {
-        return error != null;
+    protected ASTNode presentChild(ASTNode first, ASTNode second, int index) {
+        if (first != null) {
+            if (index == 0) {
+                return first;
+            }
+            index--;
+        }
+        if (second != null && index == 0) {
+            return second;
+        }
+        throw childIndexOutOfBounds(index);
+    }
+
+    /*
+     Calls the visit method of visitor for the class of this node.
+     */
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitNode(this, context);
     }
 
 	@Override
@@ -60,26 +90,74 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
+		for(int i = 0; i < getChildCount(); i++) {
+			getChild(i).toString(builder);
 		}	
 		builder.append("]");
 	}
 
+	/*
+	 Two nodes are equal when they have the same class, equal attributes and equal children.
+	 Nodes can be changed through addChild, removeChild and their public fields, so the hash code
+	 is computed on every call, except for nodes an AstInterner has frozen: interned trees must
+	 not change anymore, so their hash is cached and two interned nodes with different hashes are
+	 told apart without walking them.
+	 */
 	@Override
-    public boolean equals(Object o) {
-        if(! (o instanceof ASTNode))
-            return false;
-        //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
-            return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
-                return false;
-            }
-        }
-        return true;
-    }
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		ASTNode other = (ASTNode) o;
+		if (hash != 0 && other.hash != 0 && hash != other.hash)
+			return false;
+		if (!attributesEqual(other))
+			return false;
+		//Compare all children
+		int childCount = this.getChildCount();
+		if (other.getChildCount() != childCount)
+			return false;
+		for (int i = 0; i < childCount; i++) {
+			if (!this.getChild(i).equals(other.getChild(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		if (hash != 0) {
+			return hash;
+		}
+		int h = getClass().getName().hashCode() * 31 + attributeHash();
+		for (int i = 0; i < getChildCount(); i++) {
+			h = 31 * h + getChild(i).hashCode();
+		}
+		// 0 means not frozen
+		return h == 0 ? 1 : h;
+	}
+
+	/*
+	 Caches the hash code, after which this node must not be changed. Its children have been
+	 frozen already, so this does not walk the subtree.
+	 */
+	void freeze() {
+		hash = hashCode();
+	}
+
+	/*
+	 Compares the attributes of this node that are not children, other has the same class.
+	 */
+	protected boolean attributesEqual(ASTNode other) {
+		return true;
+	}
+
+	/*
+	 Hash of the attributes that attributesEqual compares, or of a part of them.
+	 */
+	protected int attributeHash() {
+		return 0;
+	}
 }
@@ -0,0 +1,107 @@
+package nl.han.ica.icss.ast;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Hash-consing of AST subtrees: intern returns one shared instance for every group of equal
+ * subtrees it has seen, so repeated declaration blocks and expressions are stored once and
+ * compared by identity or by their cached hash.
+ *
+ * Interning replaces the children of a node by their shared instances, bottom-up, and freezes the
+ * shared instances: only they cache their hash. A shared node can have many parents, so an
+ * interned tree must not be changed anymore: intern the result of the transformations, not their
+ * input, or intern copies that are only used as keys.
+ */
+public class AstInterner {
+
+    private final HashMap<ASTNode, ASTNode> canonical = new HashMap<>();
+    private final AstVisitor<Void, Void> internChildren = new InternChildren();
+
+    /**
+     * @return the shared instance that equals node; node itself the first time
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends ASTNode> T intern(T node) {
+        if (node == null) {
+            return null;
+        }
+        node.accept(internChildren, null);
+        ASTNode existing = canonical.get(node);
+        if (existing != null) {
+            return (T) existing;
+        }
+        node.freeze();
+        canonical.put(node, node);
+        return node;
+    }
+
+    /**
+     * @return the number of distinct subtrees seen
+     */
+    public int size() {
+        return canonical.size();
+    }
+
+    private void internAll(List<ASTNode> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.set(i, intern(nodes.get(i)));
+        }
+    }
+
+    /**
+     * Replaces every child of the visited node by its shared instance, which equals the child.
+     */
+    private class InternChildren implements AstVisitor<Void, Void> {
+
+        @Override
+        public Void visitStylesheet(Stylesheet node, Void context) {
+            internAll(node.body);
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule node, Void context) {
+            for (int i = 0; i < node.selectors.size(); i++) {
+                node.selectors.set(i, intern(node.selectors.get(i)));
+            }
+            internAll(node.body);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration node, Void context) {
+            node.property = intern(node.property);
+            node.expression = intern(node.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment node, Void context) {
+            node.name = intern(node.name);
+            node.expression = intern(node.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause node, Void context) {
+            node.conditionalExpression = intern(node.conditionalExpression);
+            internAll(node.body);
+            node.elseClause = intern(node.elseClause);
+            return null;
+        }
+
+        @Override
+        public Void visitElseClause(ElseClause node, Void context) {
+            internAll(node.body);
+            return null;
+        }
+
+        @Override
+        public Void visitOperation(Operation node, Void context) {
+            node.lhs = intern(node.lhs);
+            node.rhs = intern(node.rhs);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * Visitor over the AST. node.accept(visitor, context) calls the visit method of the class of
+ * node: one virtual call instead of a chain of instanceof tests.
+ *
+ * Every visit method defaults to the visit method of the superclass of its node, e.g.
+ * visitPixelLiteral calls visitLiteral, which calls visitExpression, which calls visitNode, which
+ * returns null. A visitor only overrides what it needs, and a new node type does not change the
+ * dispatch of the existing ones.
+ *
+ * @param <R> result of a visit
+ * @param <C> context passed to a visit
+ */
+public interface AstVisitor<R, C> {
+
+    default R visitNode(ASTNode node, C context) {
+        return null;
+    }
+
+    default R visitStylesheet(Stylesheet node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitStylerule(Stylerule node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitDeclaration(Declaration node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitVariableAssignment(VariableAssignment node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitIfClause(IfClause node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitElseClause(ElseClause node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitPropertyName(PropertyName node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitSelector(Selector node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitClassSelector(ClassSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    default R visitIdSelector(IdSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    default R visitTagSelector(TagSelector node, C context) {
+        return visitSelector(node, context);
+    }
+
+    default R visitExpression(Expression node, C context) {
+        return visitNode(node, context);
+    }
+
+    default R visitVariableReference(VariableReference node, C context) {
+        return visitExpression(node, context);
+    }
+
+    default R visitLiteral(Literal node, C context) {
+        return visitExpression(node, context);
+    }
+
+    default R visitBoolLiteral(BoolLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitColorLiteral(ColorLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitPercentageLiteral(PercentageLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitPixelLiteral(PixelLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitScalarLiteral(ScalarLiteral node, C context) {
+        return visitLiteral(node, context);
+    }
+
+    default R visitOperation(Operation node, C context) {
+        return visitExpression(node, context);
+    }
+
+    default R visitAddOperation(AddOperation node, C context) {
+        return visitOperation(node, context);
+    }
+
+    default R visitMultiplyOperation(MultiplyOperation node, C context) {
+        return visitOperation(node, context);
+    }
+
+    default R visitSubtractOperation(SubtractOperation node, C context) {
+        return visitOperation(node, context);
+    }
+}
@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 /*
  * A Declaration defines a style property. Declarations are things like "width: 100px"
@@ -33,6 +32,14 @@ public class Declaration extends ASTNode {
 		return children;
 	}
 	@Override
+	public int getChildCount() {
+		return countPresent(property, expression);
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		return presentChild(property, expression, index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
 		if(child instanceof PropertyName) {
 			property = (PropertyName) child;
@@ -43,16 +50,7 @@ public class Declaration extends ASTNode {
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		Declaration that = (Declaration) o;
-		return Objects.equals(property, that.property) &&
-				Objects.equals(expression, that.expression);
-	}
-	@Override
-	public int hashCode() {
-		return Objects.hash(property, expression);
+	public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+		return visitor.visitDeclaration(this, context);
 	}
 }
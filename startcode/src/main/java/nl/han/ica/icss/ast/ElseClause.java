@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class ElseClause extends ASTNode{
 
@@ -26,6 +25,16 @@ public class ElseClause extends ASTNode{
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return body.size();
+    }
+
+    @Override
+    public ASTNode getChild(int index) {
+        return body.get(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
 
@@ -33,20 +42,9 @@ public class ElseClause extends ASTNode{
 
         return this;
     }
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        ElseClause ElseClause = (ElseClause) o;
-        return Objects.equals(body, ElseClause.body);
-    }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(body);
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitElseClause(this, context);
     }
-
-
-
 }
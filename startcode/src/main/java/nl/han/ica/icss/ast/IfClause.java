@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class IfClause extends ASTNode {
 
@@ -39,6 +38,25 @@ public class IfClause extends ASTNode {
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return 1 + body.size() + (elseClause != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode getChild(int index) {
+        if (index == 0) {
+            return conditionalExpression;
+        }
+        if (index <= body.size()) {
+            return body.get(index - 1);
+        }
+        if (index == body.size() + 1 && elseClause != null) {
+            return elseClause;
+        }
+        throw childIndexOutOfBounds(index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
         if(child instanceof Expression)
@@ -50,29 +68,14 @@ public class IfClause extends ASTNode {
 
         return this;
     }
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        IfClause ifClause = (IfClause) o;
-        if (this.elseClause == null)
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                Objects.equals(body, ifClause.body);
-        else
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                    Objects.equals(body, ifClause.body) &&
-                    Objects.equals(elseClause, ifClause.elseClause);
-
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(conditionalExpression, body, elseClause);
-    }
 
     public Expression getConditionalExpression() {
         return conditionalExpression;
     }
     public ElseClause getElseClause() { return elseClause; }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitIfClause(this, context);
+    }
 }
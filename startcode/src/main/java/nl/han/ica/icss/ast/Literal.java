@@ -1,4 +1,25 @@
 package nl.han.ica.icss.ast;
 
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+
 public abstract class Literal extends Expression {
+    /*
+     Numeric value of the literal, 0 for literals without one. A plain int, so operations on
+     literals do not box their operands.
+     */
+    public int numericValue() {
+        return 0;
+    }
+
+    /*
+     New literal of the same unit with another value; percentages for literals without a unit.
+     */
+    public Literal withValue(int value) {
+        return new PercentageLiteral(value);
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitLiteral(this, context);
+    }
 }
@@ -17,6 +17,16 @@ public abstract class Operation extends Expression {
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return countPresent(lhs, rhs);
+    }
+
+    @Override
+    public ASTNode getChild(int index) {
+        return presentChild(lhs, rhs, index);
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
         if(lhs == null) {
@@ -26,4 +36,9 @@ public abstract class Operation extends Expression {
         }
         return this;
     }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitOperation(this, context);
+    }
 }
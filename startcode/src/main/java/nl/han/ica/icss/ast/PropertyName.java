@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast;
 
+import java.util.Objects;
+
 public class PropertyName extends ASTNode {
 
     public String name;
@@ -17,4 +19,19 @@ public class PropertyName extends ASTNode {
     public String getNodeLabel() {
         return "Property: (" + name + ")";
     }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        return Objects.equals(name, ((PropertyName) other).name);
+    }
+
+    @Override
+    protected int attributeHash() {
+        return Objects.hashCode(name);
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitPropertyName(this, context);
+    }
 }
@@ -1,4 +1,8 @@
 package nl.han.ica.icss.ast;
 
 public abstract class Selector extends ASTNode {
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitSelector(this, context);
+    }
 }
@@ -1,12 +1,15 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 public class Stylerule extends ASTNode {
 
     public ArrayList<Selector> selectors = new ArrayList<>();
     public ArrayList<ASTNode> body = new ArrayList<>();
+    /**
+     * Number of variables bound in the scope of this rule, set by the checker
+     */
+    public int frameSize;
 
     public Stylerule() {
     }
@@ -30,6 +33,16 @@ public class Stylerule extends ASTNode {
         return children;
     }
 
+    @Override
+    public int getChildCount() {
+        return selectors.size() + body.size();
+    }
+
+    @Override
+    public ASTNode getChild(int index) {
+        return index < selectors.size() ? selectors.get(index) : body.get(index - selectors.size());
+    }
+
     @Override
     public ASTNode addChild(ASTNode child) {
         if (child instanceof Selector)
@@ -40,17 +53,7 @@ public class Stylerule extends ASTNode {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        Stylerule stylerule = (Stylerule) o;
-        return Objects.equals(selectors, stylerule.selectors) &&
-                Objects.equals(body, stylerule.body);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(selectors, body);
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitStylerule(this, context);
     }
-}
\ No newline at end of file
+}
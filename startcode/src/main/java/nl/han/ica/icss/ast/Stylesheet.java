@@ -3,7 +3,6 @@ package nl.han.ica.icss.ast;
 import nl.han.ica.icss.checker.SemanticError;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * A stylesheet is the root node of the AST, it consists of one or more statements
@@ -11,9 +10,12 @@ import java.util.Objects;
  */
 public class Stylesheet extends ASTNode {
 
-
 	public ArrayList<ASTNode> body;
-	
+	/**
+	 * Number of variables bound in the global scope, set by the checker
+	 */
+	public int frameSize;
+
 	public Stylesheet() {
 		this.body = new ArrayList<>();
 	}
@@ -29,6 +31,14 @@ public class Stylesheet extends ASTNode {
 		return this.body;
 	}
 	@Override
+	public int getChildCount() {
+		return body.size();
+	}
+	@Override
+	public ASTNode getChild(int index) {
+		return body.get(index);
+	}
+	@Override
 	public ASTNode addChild(ASTNode child) {
 	    	body.add(child);
 	    	return this;
@@ -40,17 +50,7 @@ public class Stylesheet extends ASTNode {
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		Stylesheet that = (Stylesheet) o;
-		return Objects.equals(body, that.body);
-	}
-
-	@Override
-	public int hashCode() {
-
-		return Objects.hash(body);
+	public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+		return visitor.visitStylesheet(this, context);
 	}
 }
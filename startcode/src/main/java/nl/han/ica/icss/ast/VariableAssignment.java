@@ -1,7 +1,6 @@
 package nl.han.ica.icss.ast;
 
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * An assignment binds a expression to an identifier.
@@ -40,17 +39,17 @@ public class VariableAssignment extends ASTNode {
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		VariableAssignment that = (VariableAssignment) o;
-		return Objects.equals(name, that.name) &&
-				Objects.equals(expression, that.expression);
+	public int getChildCount() {
+		return countPresent(name, expression);
 	}
 
 	@Override
-	public int hashCode() {
-		return Objects.hash(name, expression);
+	public ASTNode getChild(int index) {
+		return presentChild(name, expression, index);
+	}
+
+	@Override
+	public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableAssignment(this, context);
 	}
 }
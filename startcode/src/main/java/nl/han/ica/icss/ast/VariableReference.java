@@ -5,7 +5,16 @@ import java.util.Objects;
 public class VariableReference extends Expression {
 
 	public String name;
-	
+	/**
+	 * Scope of the variable, set by the checker: 0 is the stylesheet and every (nested) style rule
+	 * is one deeper. -1 while unresolved.
+	 */
+	public int depth = -1;
+	/**
+	 * Index of the variable in the frame of its scope, -1 while unresolved.
+	 */
+	public int slot = -1;
+
 	public VariableReference(String name) {
 		super();
 		this.name = name;
@@ -16,18 +25,23 @@ public class VariableReference extends Expression {
 		return "VariableReference (" + name + ")";
 	}
 
+	/**
+	 * The slot is part of equality, so references that resolve to different variables differ. The
+	 * hash uses the name only: the checker sets the slot after the node may have been hashed.
+	 */
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		VariableReference that = (VariableReference) o;
-		return Objects.equals(name, that.name);
+	protected boolean attributesEqual(ASTNode other) {
+		VariableReference that = (VariableReference) other;
+		return Objects.equals(name, that.name) && depth == that.depth && slot == that.slot;
 	}
 
 	@Override
-	public int hashCode() {
+	protected int attributeHash() {
+		return Objects.hashCode(name);
+	}
 
-		return Objects.hash(name);
+	@Override
+	public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableReference(this, context);
 	}
 }
@@ -1,7 +1,8 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Literal;
-import java.util.Objects;
 
 public class BoolLiteral extends Literal {
     public boolean value;
@@ -19,16 +20,17 @@ public class BoolLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        BoolLiteral that = (BoolLiteral) o;
-        return value == that.value;
+    protected boolean attributesEqual(ASTNode other) {
+        return value == ((BoolLiteral) other).value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int attributeHash() {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitBoolLiteral(this, context);
     }
 }
@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Literal;
 
 import java.util.Objects;
@@ -15,17 +17,18 @@ public class ColorLiteral extends Literal {
         return "Color literal (" + value + ")";
     }
 
-
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ColorLiteral that = (ColorLiteral) o;
-        return Objects.equals(value, that.value);
+    protected boolean attributesEqual(ASTNode other) {
+        return Objects.equals(value, ((ColorLiteral) other).value);
     }
+
     @Override
-    public int hashCode() {
+    protected int attributeHash() {
+        return Objects.hashCode(value);
+    }
 
-        return Objects.hash(value);
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitColorLiteral(this, context);
     }
 }
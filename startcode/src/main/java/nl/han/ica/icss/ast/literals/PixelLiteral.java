@@ -1,9 +1,9 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Literal;
 
-import java.util.Objects;
-
 public class PixelLiteral extends Literal {
     public int value;
 
@@ -19,16 +19,27 @@ public class PixelLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        PixelLiteral that = (PixelLiteral) o;
-        return value == that.value;
+    protected boolean attributesEqual(ASTNode other) {
+        return value == ((PixelLiteral) other).value;
+    }
+
+    @Override
+    protected int attributeHash() {
+        return value;
+    }
+
+    @Override
+    public int numericValue() {
+        return value;
+    }
+
+    @Override
+    public Literal withValue(int value) {
+        return new PixelLiteral(value);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitPixelLiteral(this, context);
     }
 }
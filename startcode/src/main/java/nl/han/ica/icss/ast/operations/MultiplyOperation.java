@@ -1,5 +1,6 @@
 package nl.han.ica.icss.ast.operations;
 
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Operation;
 
 public class MultiplyOperation extends Operation {
@@ -8,4 +9,9 @@ public class MultiplyOperation extends Operation {
     public String getNodeLabel() {
         return "Multiply";
     }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitMultiplyOperation(this, context);
+    }
 }
@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -19,16 +21,17 @@ public class IdSelector extends Selector {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        IdSelector that = (IdSelector) o;
-        return Objects.equals(id, that.id);
+    protected boolean attributesEqual(ASTNode other) {
+        return Objects.equals(id, ((IdSelector) other).id);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(id);
+    protected int attributeHash() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitIdSelector(this, context);
     }
 }
@@ -1,5 +1,7 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.AstVisitor;
 import nl.han.ica.icss.ast.Selector;
 
 import java.util.Objects;
@@ -19,17 +21,17 @@ public class TagSelector extends Selector {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        TagSelector that = (TagSelector) o;
-        return Objects.equals(tag, that.tag);
+    protected boolean attributesEqual(ASTNode other) {
+        return Objects.equals(tag, ((TagSelector) other).tag);
     }
 
     @Override
-    public int hashCode() {
+    protected int attributeHash() {
+        return Objects.hashCode(tag);
+    }
 
-        return Objects.hash(tag);
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context) {
+        return visitor.visitTagSelector(this, context);
     }
 }
@@ -0,0 +1,341 @@
+package nl.han.ica.icss.cache;
+
+import nl.han.ica.icss.Compiler;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of compilation results, keyed by a SHA-256 hash of the compiler's class
+ * files and the source text. Every build that changes the compiler therefore has its own
+ * entries, while rebuilds of the same code share them.
+ *
+ * Entries are written to a temporary file and atomically moved into place, so several
+ * processes can share one cache directory: readers only ever see complete entries and
+ * concurrent writers of the same key write the same content. A hit updates the modification
+ * time of the entry, which is used as access time when the cache grows beyond its maximum
+ * size and the least recently used entries are evicted.
+ */
+public class CompilationCache {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_EXTENSION = ".entry";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final String LOCK_FILE = "eviction.lock";
+    // Evict down to this fraction of the maximum size, so eviction does not run on every put
+    private static final double LOW_WATERMARK = 0.9;
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // Classes whose code can change the CSS or the diagnostics
+    private static final String COMPILER_PACKAGE = "nl/han/ica/";
+    private static final String COMPILER_FINGERPRINT = compilerFingerprint();
+
+    private final Path directory;
+    private final long maxBytes;
+    // Size of the cache as far as this process knows, -1 until the directory has been scanned
+    private final AtomicLong approximateBytes = new AtomicLong(-1);
+
+    public CompilationCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Looks up the result of compiling source.
+     * @return the cached result, or null on a miss
+     */
+    public Entry get(String source) throws IOException {
+        Path path = entryPath(key(source));
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Entry entry = decode(bytes);
+        if (entry == null) {
+            // Written by another format version or damaged: treat as a miss, the next put replaces it
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // Evicted by another process in the meantime
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of compiling source.
+     * @param errors the diagnostics of the compilation
+     * @param css the generated CSS, or null when compilation failed
+     */
+    public void put(String source, List<String> errors, String css) throws IOException {
+        Path path = entryPath(key(source));
+        Files.createDirectories(path.getParent());
+        byte[] bytes = encode(new Entry(errors, css));
+
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), TEMP_EXTENSION);
+        try {
+            Files.write(temporary, bytes);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        if (approximateBytes.get() < 0) {
+            approximateBytes.compareAndSet(-1, scan().bytes);
+        }
+        if (approximateBytes.addAndGet(bytes.length) > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is below its low watermark.
+     * Only one process evicts at a time; when another process holds the lock this is a no-op.
+     */
+    public synchronized void evict() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                return;
+            }
+            Scan scan = scan();
+            long bytes = scan.bytes;
+            long target = (long) (maxBytes * LOW_WATERMARK);
+            scan.entries.sort(Comparator.comparing(ScannedEntry::lastAccess));
+            for (ScannedEntry entry : scan.entries) {
+                if (bytes <= target) {
+                    break;
+                }
+                if (Files.deleteIfExists(entry.path)) {
+                    bytes -= entry.size;
+                }
+            }
+            approximateBytes.set(bytes);
+        } catch (OverlappingFileLockException e) {
+            // Another thread of this process is evicting
+        }
+    }
+
+    /**
+     * @return the total size of all entries
+     */
+    public long size() throws IOException {
+        return scan().bytes;
+    }
+
+    private Scan scan() throws IOException {
+        Scan scan = new Scan();
+        long staleBefore = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (name.endsWith(ENTRY_EXTENSION)) {
+                    scan.entries.add(new ScannedEntry(path, attributes.size(), attributes.lastModifiedTime()));
+                    scan.bytes += attributes.size();
+                } else if (name.endsWith(TEMP_EXTENSION) && attributes.lastModifiedTime().toMillis() < staleBefore) {
+                    // Left behind by a process that died while writing
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return scan;
+    }
+
+    /**
+     * @return where the entry of source is stored, whether it exists or not
+     */
+    Path entryPathOf(String source) {
+        return entryPath(key(source));
+    }
+
+    private Path entryPath(String key) {
+        // Fan out over subdirectories to keep directories small
+        return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_EXTENSION);
+    }
+
+    static String key(String source) {
+        MessageDigest digest = sha256();
+        digest.update((FORMAT_VERSION + ":" + COMPILER_FINGERPRINT + "\0").getBytes(StandardCharsets.UTF_8));
+        return hex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hashes the class files of the compiler, so any change to its code changes every key.
+     * When the classes cannot be read, the key is unique to this process: results are then
+     * never shared, rather than shared with a different compiler.
+     */
+    private static String compilerFingerprint() {
+        try {
+            return compilerFingerprint(Paths.get(Compiler.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return "process-" + UUID.randomUUID();
+        }
+    }
+
+    /**
+     * Hashes the names and contents of the compiler's class files in codeSource, a directory of
+     * classes or a jar. The same classes give the same hash in both, timestamps do not count.
+     */
+    static String compilerFingerprint(Path codeSource) throws IOException {
+        MessageDigest digest = sha256();
+        if (Files.isDirectory(codeSource)) {
+            List<String> classes;
+            try (Stream<Path> paths = Files.walk(codeSource)) {
+                classes = paths.map(path -> codeSource.relativize(path).toString().replace(File.separatorChar, '/'))
+                        .filter(name -> name.startsWith(COMPILER_PACKAGE) && name.endsWith(".class"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (String name : classes) {
+                updateClass(digest, name, Files.readAllBytes(codeSource.resolve(name)));
+            }
+        } else {
+            try (JarFile jar = new JarFile(codeSource.toFile())) {
+                List<JarEntry> classes = jar.stream()
+                        .filter(entry -> entry.getName().startsWith(COMPILER_PACKAGE) && entry.getName().endsWith(".class"))
+                        .sorted(Comparator.comparing(JarEntry::getName))
+                        .collect(Collectors.toList());
+                for (JarEntry entry : classes) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        updateClass(digest, entry.getName(), in.readAllBytes());
+                    }
+                }
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static void updateClass(MessageDigest digest, String name, byte[] bytes) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entry.errors.size());
+            for (String error : entry.errors) {
+                out.writeUTF(error);
+            }
+            out.writeBoolean(entry.css != null);
+            if (entry.css != null) {
+                byte[] css = entry.css.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(css.length);
+                out.write(css);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int errorCount = in.readInt();
+            List<String> errors = new ArrayList<>(errorCount);
+            for (int i = 0; i < errorCount; i++) {
+                errors.add(in.readUTF());
+            }
+            String css = null;
+            if (in.readBoolean()) {
+                byte[] cssBytes = new byte[in.readInt()];
+                in.readFully(cssBytes);
+                css = new String(cssBytes, StandardCharsets.UTF_8);
+            }
+            return new Entry(errors, css);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A cached compilation result.
+     */
+    public static class Entry {
+        public final List<String> errors;
+        public final String css;
+
+        public Entry(List<String> errors, String css) {
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+            this.css = css;
+        }
+
+        public boolean isSuccess() {
+            return errors.isEmpty() && css != null;
+        }
+    }
+
+    private static class Scan {
+        final List<ScannedEntry> entries = new ArrayList<>();
+        long bytes;
+    }
+
+    private static class ScannedEntry {
+        final Path path;
+        final long size;
+        final FileTime lastAccess;
+
+        ScannedEntry(Path path, long size, FileTime lastAccess) {
+            this.path = path;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        FileTime lastAccess() {
+            return lastAccess;
+        }
+    }
+}
@@ -1,55 +1,146 @@
 // Checker.java
 package nl.han.ica.icss.checker;
 
-import nl.han.ica.datastructures.HashmapTableLinked;
+import nl.han.ica.datastructures.HANPersistentScopeTable;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.trace.Trace;
+import nl.han.ica.trace.TraceCategory;
+import nl.han.ica.trace.TraceLevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 public class Checker {
-    private HashmapTableLinked<String, ExpressionType> variableTypes;
+    private final BodyChecker bodyChecker = new BodyChecker();
+    private final ExpressionChecker expressionChecker = new ExpressionChecker();
+    private HANPersistentScopeTable<String, Variable> variables;
+    // Names assigned inside the open branches, in order
+    private final ArrayList<String> branchAssignments = new ArrayList<>();
+    private int branchDepth;
+    // Number of variables bound so far in the scope at each depth
+    private int[] frameSizes;
+    private int depth;
+    private DiagnosticsSink diagnostics;
+
+    /**
+     * Checks ast without an error budget.
+     * @return the errors, in the order they were found
+     */
+    public List<SemanticError> check(AST ast) {
+        DiagnosticsSink diagnostics = new DiagnosticsSink();
+        check(ast, diagnostics);
+        return diagnostics.getErrors();
+    }
+
+    /**
+     * Checks ast and reports its errors to diagnostics. Stops when the error budget of
+     * diagnostics is used up; the frame sizes of the tree are then incomplete.
+     */
+    public void check(AST ast, DiagnosticsSink diagnostics) {
+        this.diagnostics = diagnostics;
+        try {
+            checkTree(ast);
+        } catch (DiagnosticsSink.BudgetExhaustedException e) {
+            // The budget is used up: stop checking
+        }
+    }
 
-    public void check(AST ast) {
-        variableTypes = new HashmapTableLinked<>();
+    private void checkTree(AST ast) {
+        variables = new HANPersistentScopeTable<>();
+        branchAssignments.clear();
+        branchDepth = 0;
+        frameSizes = new int[8];
+        depth = -1;
         addNewScope();
         checkStyleSheet(ast.root);
-        removeCurrentScope();
+        ast.root.frameSize = removeCurrentScope();
     }
 
     private void checkStyleSheet(Stylesheet stylesheet) {
-        for (ASTNode child : stylesheet.getChildren()) {
-            if (child instanceof VariableAssignment) {
-                checkVariableAssignment(child);
-            }
-            if (child instanceof Stylerule) {
-                checkStyleRule(child);
-            }
+        for (int i = 0; i < stylesheet.getChildCount(); i++) {
+            stylesheet.getChild(i).accept(bodyChecker, null);
         }
     }
 
     private void checkStyleRule(ASTNode astNode) {
         Stylerule stylerule = (Stylerule) astNode;
         addNewScope();
-        checkRuleBody(stylerule);
-        removeCurrentScope();
+        checkRuleBody(stylerule.body);
+        stylerule.frameSize = removeCurrentScope();
     }
 
-    private void checkRuleBody(ASTNode astNode) {
-        for (ASTNode child : astNode.getChildren()) {
-            if (child instanceof Stylerule) {
-                checkRuleBody(child);
-            }
+    private void checkRuleBody(List<ASTNode> body) {
+        for (int i = 0; i < body.size(); i++) {
+            body.get(i).accept(bodyChecker, null);
+        }
+    }
+
+    private void checkIfClause(IfClause ifClause) {
+        if (checkExpression(ifClause.conditionalExpression) != ExpressionType.BOOL) {
+            diagnostics.report(ifClause, "If condition must be a boolean.");
+        }
+        HANPersistentScopeTable<String, Variable> enclosing = variables;
+        int assignments = branchAssignments.size();
+        HANPersistentScopeTable<String, Variable> ifPath = checkBranch(ifClause.body);
+        HANPersistentScopeTable<String, Variable> elsePath = ifClause.elseClause != null
+                ? checkBranch(ifClause.elseClause.body)
+                : enclosing;
+        mergeBranches(ifClause, ifPath, elsePath, assignments);
+    }
+
+    /**
+     * A branch does not get a frame of its own: the evaluator keeps the variables it binds in the
+     * frame of the rule, and an assignment to a variable of an enclosing scope writes that
+     * variable's slot, so a branch that runs changes the variable for everything after the if
+     * clause. The branch is checked on a fork of the symbol table, so a variable it binds is not
+     * visible outside the branch and the else branch starts from the types before the if clause;
+     * {@link #mergeBranches} then brings the types of the enclosing variables up to date.
+     * @return the fork after checking the branch
+     */
+    private HANPersistentScopeTable<String, Variable> checkBranch(List<ASTNode> body) {
+        HANPersistentScopeTable<String, Variable> enclosing = variables;
+        variables = enclosing.fork();
+        branchDepth++;
+        checkRuleBody(body);
+        branchDepth--;
+        HANPersistentScopeTable<String, Variable> path = variables;
+        variables = enclosing;
+        return path;
+    }
 
-            if (child instanceof Declaration) {
-                checkDeclaration(child);
+    /**
+     * Either branch may have run, so after the if clause a variable of an enclosing scope that a
+     * branch assigned has the type both paths agree on. When they do not, the variable changes type
+     * in a branch, which is an error; it keeps its type from before the if clause.
+     * @param assignments the number of branch assignments before the if clause
+     */
+    private void mergeBranches(IfClause ifClause, HANPersistentScopeTable<String, Variable> ifPath,
+                               HANPersistentScopeTable<String, Variable> elsePath, int assignments) {
+        HashSet<String> merged = new HashSet<>();
+        for (int i = assignments; i < branchAssignments.size(); i++) {
+            String name = branchAssignments.get(i);
+            Variable before = variables.getVariable(name);
+            if (before == null || !merged.add(name)) {
+                // Bound in the branch itself, or merged already
+                continue;
             }
-            if (child instanceof VariableAssignment) {
-                checkVariableAssignment(child);
+            ExpressionType type = ifPath.getVariable(name).type;
+            if (type != elsePath.getVariable(name).type) {
+                diagnostics.report(ifClause, "Variable " + name + " changes type in a branch.");
+            } else if (type != before.type) {
+                variables.putVariable(name, new Variable(type, before.depth, before.slot));
             }
         }
+        if (branchDepth == 0) {
+            branchAssignments.clear();
+        }
     }
 
     private void checkDeclaration(ASTNode astNode) {
@@ -60,13 +151,13 @@ public class Checker {
             case "color":
             case "background-color":
                 if (expressionType != ExpressionType.COLOR) {
-                    astNode.setError(declaration.property.name + " waarde moet een #HEX kleur zijn.");
+                    diagnostics.report(astNode, declaration.property.name + " waarde moet een #HEX kleur zijn.");
                 }
                 break;
             case "width":
             case "height":
                 if (expressionType != ExpressionType.PIXEL && expressionType != ExpressionType.PERCENTAGE) {
-                    astNode.setError(declaration.property.name + " waarde moet een pixel of percentage zijn.");
+                    diagnostics.report(astNode, declaration.property.name + " waarde moet een pixel of percentage zijn.");
                 }
                 break;
         }
@@ -78,58 +169,80 @@ public class Checker {
         ExpressionType expressionType = checkExpression(variableAssignment.expression);
 
         if (expressionType == null || expressionType == ExpressionType.UNDEFINED) {
-            astNode.setError("Variable assignment is undefined/null.");
+            diagnostics.report(astNode, "Variable assignment is undefined/null.");
             return;
         }
-        addVariableToCurrentScope(variableReference.name, expressionType);
-        System.out.println("Assigned variable " + variableReference.name + " with type " + expressionType);
+        Variable variable = assignVariable(variableReference.name, expressionType);
+        if (branchDepth > 0) {
+            branchAssignments.add(variableReference.name);
+        }
+        variableReference.depth = variable.depth;
+        variableReference.slot = variable.slot;
+        if (Trace.TYPE) {
+            Trace.log(TraceCategory.TYPE, TraceLevel.DEBUG,
+                    "Assigned variable " + variableReference.name + " with type " + expressionType);
+        }
     }
 
     private ExpressionType checkVariableReference(VariableReference expression) {
-        System.out.println("Checking variable reference -------------- " + expression.name);
-        ExpressionType type = variableTypes.getVariable(expression.name);
-        if (type == null) {
-            expression.setError("Variable " + expression.name + " is out of scope.");
-        } else {
-            System.out.println("Referenced variable found---------" + expression.name + " with type " + type);
+        if (Trace.LOOKUP) {
+            Trace.log(TraceCategory.LOOKUP, TraceLevel.TRACE, "Checking variable reference " + expression.name);
         }
-        return type;
+        Variable variable = variables.getVariable(expression.name);
+        if (variable == null) {
+            diagnostics.report(expression, "Variable " + expression.name + " is out of scope.");
+            return null;
+        }
+        expression.depth = variable.depth;
+        expression.slot = variable.slot;
+        if (Trace.TYPE) {
+            Trace.log(TraceCategory.TYPE, TraceLevel.DEBUG,
+                    "Referenced variable found " + expression.name + " with type " + variable.type);
+        }
+        return variable.type;
     }
 
     private void addNewScope() {
-        variableTypes.pushScope();
+        variables.pushScope();
+        depth++;
+        if (depth == frameSizes.length) {
+            frameSizes = Arrays.copyOf(frameSizes, depth * 2);
+        }
+        frameSizes[depth] = 0;
     }
 
-    private void removeCurrentScope() {
-        variableTypes.popScope();
+    /**
+     * @return the number of variables bound in the removed scope
+     */
+    private int removeCurrentScope() {
+        variables.popScope();
+        return frameSizes[depth--];
     }
 
-    private void addVariableToCurrentScope(String variableName, ExpressionType type) {
-        variableTypes.putVariable(variableName, type);
+    /**
+     * Like the evaluator, an assignment updates a variable that is already bound in any open scope,
+     * also from inside a branch: it gets the depth and slot of that variable. Otherwise it binds the
+     * variable to the next free slot of the current scope.
+     */
+    private Variable assignVariable(String variableName, ExpressionType type) {
+        Variable variable = variables.getVariable(variableName);
+        if (variable == null) {
+            variable = new Variable(type, depth, frameSizes[depth]++);
+        } else {
+            variable = new Variable(type, variable.depth, variable.slot);
+        }
+        variables.putVariable(variableName, variable);
+        return variable;
     }
 
     private ExpressionType checkExpression(Expression expression) {
-        if (expression instanceof VariableReference) {
-            return checkVariableReference((VariableReference) expression);
-        } else if (expression instanceof Literal) {
-            if (expression instanceof BoolLiteral) {
-                return ExpressionType.BOOL;
-            } else if (expression instanceof ColorLiteral) {
-                return ExpressionType.COLOR;
-            } else if (expression instanceof PercentageLiteral) {
-                return ExpressionType.PERCENTAGE;
-            } else if (expression instanceof PixelLiteral) {
-                return ExpressionType.PIXEL;
-            } else if (expression instanceof ScalarLiteral) {
-                return ExpressionType.SCALAR;
-            }
-        } else if (expression instanceof Operation) {
-            return checkOperation((Operation) expression);
+        if (expression == null) {
+            return ExpressionType.UNDEFINED;
         }
-        return ExpressionType.UNDEFINED;
+        return expression.accept(expressionChecker, null);
     }
 
-    private ExpressionType checkOperation(Operation operation) {
+    private ExpressionType checkOperation(Operation operation, boolean multiply) {
         ExpressionType left;
         ExpressionType right;
 
@@ -137,20 +250,119 @@ public class Checker {
         right = checkExpression(operation.rhs);
 
         if (left == ExpressionType.COLOR || right == ExpressionType.COLOR) {
-            operation.setError("Colors are not allowed in operations.");
+            diagnostics.report(operation, "Colors are not allowed in operations.");
             return ExpressionType.UNDEFINED;
-        } else if (operation instanceof MultiplyOperation) {
+        } else if (multiply) {
             if (left != ExpressionType.SCALAR && right != ExpressionType.SCALAR) {
-                operation.setError("Multiply is only allowed with at least one scalar literal.");
+                diagnostics.report(operation, "Multiply is only allowed with at least one scalar literal.");
                 return ExpressionType.UNDEFINED;
             }
             return right != ExpressionType.SCALAR ? right : left;
         } else {
-            if ((operation instanceof SubtractOperation || operation instanceof AddOperation) && left != right) {
-                operation.setError("You can only do add and subtract operations with the same literal.");
+            if (left != right) {
+                diagnostics.report(operation, "You can only do add and subtract operations with the same literal.");
                 return ExpressionType.UNDEFINED;
             }
             return left;
         }
     }
+
+    /**
+     * Checks the statements of a rule body.
+     */
+    private class BodyChecker implements AstVisitor<Void, Void> {
+        @Override
+        public Void visitStylerule(Stylerule node, Void context) {
+            checkStyleRule(node);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration node, Void context) {
+            checkDeclaration(node);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment node, Void context) {
+            checkVariableAssignment(node);
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause node, Void context) {
+            checkIfClause(node);
+            return null;
+        }
+    }
+
+    /**
+     * Determines the type of an expression; UNDEFINED for anything that is not a valid expression.
+     */
+    private class ExpressionChecker implements AstVisitor<ExpressionType, Void> {
+        @Override
+        public ExpressionType visitNode(ASTNode node, Void context) {
+            return ExpressionType.UNDEFINED;
+        }
+
+        @Override
+        public ExpressionType visitVariableReference(VariableReference node, Void context) {
+            return checkVariableReference(node);
+        }
+
+        @Override
+        public ExpressionType visitBoolLiteral(BoolLiteral node, Void context) {
+            return ExpressionType.BOOL;
+        }
+
+        @Override
+        public ExpressionType visitColorLiteral(ColorLiteral node, Void context) {
+            return ExpressionType.COLOR;
+        }
+
+        @Override
+        public ExpressionType visitPercentageLiteral(PercentageLiteral node, Void context) {
+            return ExpressionType.PERCENTAGE;
+        }
+
+        @Override
+        public ExpressionType visitPixelLiteral(PixelLiteral node, Void context) {
+            return ExpressionType.PIXEL;
+        }
+
+        @Override
+        public ExpressionType visitScalarLiteral(ScalarLiteral node, Void context) {
+            return ExpressionType.SCALAR;
+        }
+
+        @Override
+        public ExpressionType visitAddOperation(AddOperation node, Void context) {
+            return checkOperation(node, false);
+        }
+
+        @Override
+        public ExpressionType visitSubtractOperation(SubtractOperation node, Void context) {
+            return checkOperation(node, false);
+        }
+
+        @Override
+        public ExpressionType visitMultiplyOperation(MultiplyOperation node, Void context) {
+            return checkOperation(node, true);
+        }
+    }
+
+    /**
+     * Type and lexical address of a variable. Immutable, so forks of the symbol table never share changes.
+     */
+    private static class Variable {
+        final ExpressionType type;
+        final int depth;
+        final int slot;
+
+        Variable(ExpressionType type, int depth, int slot) {
+            this.type = type;
+            this.depth = depth;
+            this.slot = slot;
+        }
+    }
 }
\ No newline at end of file
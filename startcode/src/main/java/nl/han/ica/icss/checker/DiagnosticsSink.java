@@ -0,0 +1,97 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the semantic errors the {@link Checker} reports while it walks the tree, in the order
+ * it finds them. With an error budget, checking stops at the error that uses up the budget.
+ */
+public class DiagnosticsSink {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int errorBudget;
+    private final ArrayList<SemanticError> errors = new ArrayList<>();
+    // Nodes with an error, built on the first hasError() call
+    private Set<ASTNode> errorNodes;
+    private boolean aborted = false;
+
+    public DiagnosticsSink() {
+        this(UNLIMITED);
+    }
+
+    /**
+     * @param errorBudget number of errors after which checking stops, at least 1
+     */
+    public DiagnosticsSink(int errorBudget) {
+        if (errorBudget < 1) {
+            throw new IllegalArgumentException("Error budget must be at least 1, not " + errorBudget);
+        }
+        this.errorBudget = errorBudget;
+    }
+
+    /**
+     * Adds an error about node.
+     * @throws BudgetExhaustedException when this error uses up the budget
+     */
+    public void report(ASTNode node, String description) {
+        errors.add(new SemanticError(node, description));
+        errorNodes = null;
+        if (errors.size() >= errorBudget) {
+            aborted = true;
+            throw new BudgetExhaustedException();
+        }
+    }
+
+    public List<SemanticError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * @return whether an error was reported about this node; nodes are compared by identity
+     */
+    public boolean hasError(ASTNode node) {
+        if (errors.isEmpty()) {
+            return false;
+        }
+        if (errorNodes == null) {
+            errorNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (SemanticError error : errors) {
+                errorNodes.add(error.node);
+            }
+        }
+        return errorNodes.contains(node);
+    }
+
+    /**
+     * @return whether checking stopped because the budget was used up; the tree may contain more errors
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public int getErrorBudget() {
+        return errorBudget;
+    }
+
+    /**
+     * Unwinds the checker when the budget is used up. Thrown and caught for control flow only,
+     * so it has no stack trace.
+     */
+    static class BudgetExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExhaustedException() {
+            super(null, null, false, false);
+        }
+    }
+}
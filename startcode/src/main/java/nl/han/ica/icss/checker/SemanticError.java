@@ -1,9 +1,19 @@
 package nl.han.ica.icss.checker;
 
+import nl.han.ica.icss.ast.ASTNode;
+
 public class SemanticError {
 	public String description;
+	/**
+	 * The node the error is about, null when it is not about a node of the object AST.
+	 */
+	public ASTNode node;
 
 	public SemanticError(String description) {
+		this(null, description);
+	}
+	public SemanticError(ASTNode node, String description) {
+		this.node = node;
 		this.description = description;
 	}
 	public String toString() {
@@ -0,0 +1,54 @@
+package nl.han.ica.icss.cli;
+
+/**
+ * Command line parsing shared by the entry points. Every problem with the arguments is an
+ * IllegalArgumentException with a message for the user, so a main method catches that one type
+ * and prints its usage line.
+ */
+public final class Arguments {
+
+    private Arguments() {
+    }
+
+    /**
+     * @return the value of the option at index - 1
+     * @throws IllegalArgumentException when the option is the last argument
+     */
+    public static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    /**
+     * @return the value of the option at index - 1 as a number between min and max
+     * @throws IllegalArgumentException when the value is missing, not a number or out of range
+     */
+    public static long number(String[] args, int index, long min, long max) {
+        String value = value(args, index);
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a number, not " + value);
+        }
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(args[index - 1] + (max == Long.MAX_VALUE
+                    ? " must be at least " + min
+                    : " must be between " + min + " and " + max));
+        }
+        return number;
+    }
+
+    /**
+     * @return argument, which is not an option
+     * @throws IllegalArgumentException when argument looks like an option
+     */
+    public static String operand(String argument) {
+        if (argument.startsWith("-")) {
+            throw new IllegalArgumentException("Unknown option " + argument);
+        }
+        return argument;
+    }
+}
@@ -0,0 +1,293 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.Compiler;
+import nl.han.ica.icss.cache.CompilationCache;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that compiles every .icss file below a source directory.
+ * Files are compiled in parallel on a bounded thread pool, diagnostics are reported
+ * in (sorted) path order so the output does not depend on scheduling. All workers share
+ * one {@link Compiler}.
+ *
+ * With a cache directory, files whose source was compiled before (by any process sharing
+ * the cache) are not compiled again. With --flat, files are compiled on the flat AST, see
+ * {@link Compiler#compileFlat}, which needs far less memory for very large stylesheets.
+ *
+ * Usage: BatchCompiler [-o output-dir] [-j threads] [--cache dir] [--cache-size MB] [--flat] source-dir
+ */
+public class BatchCompiler {
+
+    private static final String SOURCE_EXTENSION = ".icss";
+    private static final String TARGET_EXTENSION = ".css";
+    private static final long DEFAULT_CACHE_MEGABYTES = 256;
+    private static final int MAX_THREADS = 1024;
+
+    private final Compiler compiler = new Compiler();
+    private final Path sourceRoot;
+    private final Path outputRoot;
+    private final int threads;
+    private final CompilationCache cache;
+    private final boolean flat;
+    private final AtomicInteger cacheHits = new AtomicInteger();
+
+    public BatchCompiler(Path sourceRoot, Path outputRoot, int threads) {
+        this(sourceRoot, outputRoot, threads, null);
+    }
+
+    /**
+     * @param cache cache of earlier results, or null to always compile
+     */
+    public BatchCompiler(Path sourceRoot, Path outputRoot, int threads, CompilationCache cache) {
+        this(sourceRoot, outputRoot, threads, cache, false);
+    }
+
+    /**
+     * @param cache cache of earlier results, or null to always compile
+     * @param flat whether to compile on the flat AST
+     */
+    public BatchCompiler(Path sourceRoot, Path outputRoot, int threads, CompilationCache cache, boolean flat) {
+        this.sourceRoot = sourceRoot;
+        this.outputRoot = outputRoot;
+        this.threads = threads;
+        this.cache = cache;
+        this.flat = flat;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path sourceRoot = null;
+        Path outputRoot = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path cacheDirectory = null;
+        long cacheMegabytes = DEFAULT_CACHE_MEGABYTES;
+        boolean flat = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o":
+                        outputRoot = Paths.get(Arguments.value(args, ++i));
+                        break;
+                    case "-j":
+                        threads = (int) Arguments.number(args, ++i, 1, MAX_THREADS);
+                        break;
+                    case "--cache":
+                        cacheDirectory = Paths.get(Arguments.value(args, ++i));
+                        break;
+                    case "--cache-size":
+                        cacheMegabytes = Arguments.number(args, ++i, 1, Long.MAX_VALUE / (1024 * 1024));
+                        break;
+                    case "--flat":
+                        flat = true;
+                        break;
+                    default:
+                        if (sourceRoot != null) {
+                            throw new IllegalArgumentException("More than one source directory");
+                        }
+                        sourceRoot = Paths.get(Arguments.operand(args[i]));
+                }
+            }
+            if (sourceRoot == null) {
+                throw new IllegalArgumentException("No source directory");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchCompiler [-o output-dir] [-j threads] [--cache dir] [--cache-size MB] [--flat] source-dir");
+            System.exit(2);
+        }
+
+        CompilationCache cache = cacheDirectory == null ? null
+                : new CompilationCache(cacheDirectory, cacheMegabytes * 1024 * 1024);
+        BatchCompiler batchCompiler = new BatchCompiler(sourceRoot, outputRoot, threads, cache, flat);
+        boolean succeeded = batchCompiler.run();
+        System.exit(succeeded ? 0 : 1);
+    }
+
+    /**
+     * Compiles all source files and prints diagnostics and a throughput summary.
+     * @return true when every file compiled without errors
+     */
+    public boolean run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Path> sources = findSources();
+        List<FileResult> results = compileAll(sources);
+        long elapsed = System.nanoTime() - start;
+
+        int failed = 0;
+        for (FileResult result : results) {
+            for (String error : result.errors) {
+                System.err.println(result.source + ": " + error);
+            }
+            if (!result.isSuccess()) {
+                failed++;
+            }
+        }
+        System.out.println(summary(results.size(), failed, elapsed));
+        return failed == 0;
+    }
+
+    /**
+     * Lists the source files below the source root, sorted by path.
+     */
+    public List<Path> findSources() throws IOException {
+        try (Stream<Path> paths = Files.walk(sourceRoot)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compiles the given files on the thread pool. The returned results are in the same order as the sources.
+     */
+    public List<FileResult> compileAll(List<Path> sources) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>(sources.size());
+            for (Path source : sources) {
+                futures.add(executor.submit(() -> compileFile(source)));
+            }
+            List<FileResult> results = new ArrayList<>(futures.size());
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs parse, check, transform and generate for one file, or takes the result from the cache.
+     * The target is only replaced when compilation succeeds.
+     */
+    public FileResult compileFile(Path source) {
+        try {
+            String input = Files.readString(source, StandardCharsets.UTF_8);
+            Path target = targetFor(source).toAbsolutePath();
+
+            if (cache == null) {
+                CompilationResult[] result = new CompilationResult[1];
+                writeAtomically(target, writer -> {
+                    result[0] = compile(input, writer);
+                    return result[0].isSuccess();
+                });
+                return new FileResult(source, result[0].getErrors());
+            }
+
+            CompilationCache.Entry entry = cache.get(input);
+            if (entry != null) {
+                cacheHits.incrementAndGet();
+            } else {
+                StringBuilder css = new StringBuilder();
+                CompilationResult result = compile(input, css);
+                entry = new CompilationCache.Entry(result.getErrors(), result.isSuccess() ? css.toString() : null);
+                cache.put(input, entry.errors, entry.css);
+            }
+            if (entry.isSuccess()) {
+                String css = entry.css;
+                writeAtomically(target, writer -> {
+                    writer.write(css);
+                    return true;
+                });
+            }
+            return new FileResult(source, entry.errors);
+        } catch (IOException e) {
+            return new FileResult(source, Collections.singletonList("I/O error: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            return new FileResult(source, Collections.singletonList("Internal compiler error: " + e));
+        }
+    }
+
+    private CompilationResult compile(String input, Appendable out) throws IOException {
+        return flat ? compiler.compileFlat(input, out) : compiler.compile(input, out);
+    }
+
+    /**
+     * Writes to a temporary file next to target, which replaces target when output returns true.
+     * Readers of target never see a partially written file.
+     */
+    static void writeAtomically(Path target, Output output) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            boolean keep;
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                keep = output.writeTo(writer);
+            }
+            if (keep) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    interface Output {
+        boolean writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Maps a source file to its .css output, either next to the source or mirrored into the output root.
+     */
+    public Path targetFor(Path source) {
+        String name = source.getFileName().toString();
+        String targetName = name.substring(0, name.length() - SOURCE_EXTENSION.length()) + TARGET_EXTENSION;
+        if (outputRoot == null) {
+            return source.resolveSibling(targetName);
+        }
+        Path relative = sourceRoot.relativize(source);
+        return outputRoot.resolve(relative).resolveSibling(targetName);
+    }
+
+    private String summary(int files, int failed, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        double filesPerSecond = seconds > 0 ? files / seconds : 0;
+        String summary = String.format("Compiled %d files (%d failed) in %.1f ms, %.1f files/sec on %d threads",
+                files, failed, elapsedNanos / 1_000_000.0, filesPerSecond, threads);
+        if (cache != null) {
+            summary += String.format(", %d cache hits", cacheHits.get());
+        }
+        return summary;
+    }
+
+    /**
+     * Outcome of compiling a single file.
+     */
+    public static class FileResult {
+        public final Path source;
+        public final List<String> errors;
+
+        public FileResult(Path source, List<String> errors) {
+            this.source = source;
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+    }
+}
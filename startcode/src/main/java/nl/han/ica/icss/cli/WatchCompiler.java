@@ -0,0 +1,215 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.IncrementalCompiler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Development mode that watches a source tree and recompiles .icss files as soon as they are saved.
+ *
+ * The JVM keeps running, so the JIT and the parser's DFA cache stay warm between saves. Bursts of
+ * file events (editors often write a file several times per save) are coalesced: compilation
+ * starts once no new event has arrived for the debounce interval. Every file keeps its own
+ * {@link IncrementalCompiler}, so a save only recompiles the rules that changed.
+ *
+ * Usage: WatchCompiler [-o output-dir] [--debounce ms] source-dir
+ */
+public class WatchCompiler implements Closeable {
+
+    private static final String SOURCE_EXTENSION = ".icss";
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 20;
+
+    private final Path sourceRoot;
+    private final BatchCompiler batchCompiler;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, IncrementalCompiler> documents = new HashMap<>();
+
+    public WatchCompiler(Path sourceRoot, Path outputRoot, long debounceMillis) throws IOException {
+        this.sourceRoot = sourceRoot;
+        this.batchCompiler = new BatchCompiler(sourceRoot, outputRoot, 1);
+        this.debounceMillis = debounceMillis;
+        this.watchService = sourceRoot.getFileSystem().newWatchService();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path sourceRoot = null;
+        Path outputRoot = null;
+        long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o":
+                        outputRoot = Paths.get(Arguments.value(args, ++i));
+                        break;
+                    case "--debounce":
+                        debounceMillis = Arguments.number(args, ++i, 0, Long.MAX_VALUE);
+                        break;
+                    default:
+                        if (sourceRoot != null) {
+                            throw new IllegalArgumentException("More than one source directory");
+                        }
+                        sourceRoot = Paths.get(Arguments.operand(args[i]));
+                }
+            }
+            if (sourceRoot == null) {
+                throw new IllegalArgumentException("No source directory");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: WatchCompiler [-o output-dir] [--debounce ms] source-dir");
+            System.exit(2);
+        }
+
+        new WatchCompiler(sourceRoot, outputRoot, debounceMillis).run();
+    }
+
+    /**
+     * Compiles all files once and then recompiles changed files until the thread is interrupted.
+     */
+    public void run() throws IOException, InterruptedException {
+        build();
+        System.out.println("Watching " + sourceRoot + " for changes...");
+
+        while (true) {
+            update(awaitChanges());
+        }
+    }
+
+    /**
+     * Starts watching the source tree and compiles every file in it.
+     */
+    void build() throws IOException {
+        registerTree(sourceRoot);
+        // The initial build also warms up the JIT and the parser
+        for (Path source : batchCompiler.findSources()) {
+            compile(source);
+        }
+    }
+
+    /**
+     * Waits for the next burst of file events, which ends when no event arrived for the debounce
+     * interval.
+     * @return the source files that were created, changed or deleted during the burst, sorted
+     */
+    Set<Path> awaitChanges() throws IOException, InterruptedException {
+        Set<Path> touched = new TreeSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            collect(key, touched);
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return touched;
+    }
+
+    /**
+     * Recompiles the touched files that exist and removes the output of the ones that were deleted.
+     */
+    void update(Set<Path> touched) {
+        for (Path source : touched) {
+            if (Files.isRegularFile(source)) {
+                compile(source);
+            } else {
+                remove(source);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the source tree.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collect(WatchKey key, Set<Path> touched) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, look at everything again
+                touched.addAll(batchCompiler.findSources());
+                continue;
+            }
+            Path child = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                registerTree(child);
+                touched.addAll(sourcesBelow(child));
+            } else if (child.getFileName().toString().endsWith(SOURCE_EXTENSION)) {
+                touched.add(child);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+                WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                directories.put(key, directory);
+            }
+        }
+    }
+
+    private static List<Path> sourcesBelow(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void compile(Path source) {
+        long start = System.nanoTime();
+        try {
+            String input = Files.readString(source, StandardCharsets.UTF_8);
+            IncrementalCompiler document = documents.computeIfAbsent(source, path -> new IncrementalCompiler());
+            CompilationResult result = document.update(input);
+            if (result.isSuccess()) {
+                BatchCompiler.writeAtomically(batchCompiler.targetFor(source).toAbsolutePath(), writer -> {
+                    writer.write(result.getCss());
+                    return true;
+                });
+            }
+            for (String error : result.getErrors()) {
+                System.err.println(source + ": " + error);
+            }
+            System.out.println(String.format("%s %s in %.1f ms", result.isSuccess() ? "Compiled" : "Failed",
+                    source, (System.nanoTime() - start) / 1_000_000.0));
+        } catch (NoSuchFileException e) {
+            // Deleted again before we got to it
+            remove(source);
+        } catch (IOException e) {
+            System.err.println(source + ": I/O error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println(source + ": Internal compiler error: " + e);
+            documents.remove(source);
+        }
+    }
+
+    private void remove(Path source) {
+        if (documents.remove(source) != null) {
+            try {
+                Files.deleteIfExists(batchCompiler.targetFor(source));
+                System.out.println("Removed " + source);
+            } catch (IOException e) {
+                System.err.println(source + ": I/O error: " + e.getMessage());
+            }
+        }
+    }
+}
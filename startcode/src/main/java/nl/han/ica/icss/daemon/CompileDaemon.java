@@ -0,0 +1,208 @@
+package nl.han.ica.icss.daemon;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.Compiler;
+import nl.han.ica.icss.ParserStats;
+import nl.han.ica.icss.cli.Arguments;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-running compile server on the loopback interface. Keeping the JVM alive avoids paying
+ * JVM startup, class loading and parser warm-up for every file.
+ *
+ * POST /compile with the ICSS source as body answers 200 with the CSS, or 422 with one
+ * diagnostic per line. GET /stats reports the number of compile requests, the current and
+ * maximum number of compile requests being handled (in flight) and of requests waiting for a
+ * thread (queued), the compile latency and how often the parser fell back from SLL to full LL
+ * prediction (including the warm-up).
+ *
+ * Each request runs on a virtual thread when the runtime supports them (JDK 21+), otherwise
+ * on a fixed pool with one thread per core.
+ *
+ * Usage: CompileDaemon [-p port]
+ */
+public class CompileDaemon {
+
+    public static final int DEFAULT_PORT = 7412;
+
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_UNPROCESSABLE = 422;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+
+    private final Compiler compiler = new Compiler();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public CompileDaemon(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = newRequestExecutor();
+        server.setExecutor(this::dispatch);
+        server.createContext("/compile", this::handleCompile);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-p")) {
+                    port = (int) Arguments.number(args, ++i, 0, 65535);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: CompileDaemon [-p port]");
+            System.exit(2);
+        }
+
+        CompileDaemon daemon = new CompileDaemon(port);
+        daemon.warmUp();
+        daemon.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        System.out.println("Compile daemon listening on " + daemon.getAddress());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Compiles the bundled example a number of times so the JIT and the parser's DFA cache are
+     * warm before the first request comes in.
+     */
+    public void warmUp() throws IOException {
+        Compiler.warmUp(WARM_UP_ITERATIONS);
+    }
+
+    /**
+     * Hands an accepted request to the executor. It counts as queued until a thread picks it up,
+     * which on the fixed pool waits for a free thread.
+     */
+    private void dispatch(Runnable request) {
+        int depth = queued.incrementAndGet();
+        maxQueued.accumulateAndGet(depth, Math::max);
+        try {
+            executor.execute(() -> {
+                queued.decrementAndGet();
+                request.run();
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void handleCompile(HttpExchange exchange) throws IOException {
+        int depth = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(depth, Math::max);
+        long start = System.nanoTime();
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, HTTP_BAD_METHOD, "Use POST\n");
+                return;
+            }
+            String input = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            CompilationResult result;
+            try {
+                result = compiler.compile(input);
+            } catch (RuntimeException e) {
+                respond(exchange, HTTP_INTERNAL_ERROR, "Internal compiler error: " + e + "\n");
+                return;
+            }
+            if (result.isSuccess()) {
+                exchange.getResponseHeaders().set("Content-Type", "text/css; charset=utf-8");
+                respond(exchange, HTTP_OK, result.getCss());
+            } else {
+                respond(exchange, HTTP_UNPROCESSABLE, String.join("\n", result.getErrors()) + "\n");
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            requests.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulateAndGet(elapsed, Math::max);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, HTTP_OK, getStats());
+        }
+    }
+
+    /**
+     * @return the statistics reported by GET /stats
+     */
+    public String getStats() {
+        long count = requests.sum();
+        double meanMillis = count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000.0;
+        ParserStats parserStats = Compiler.getParserStats();
+        return "requests: " + count + "\n"
+                + "in-flight: " + inFlight.get() + "\n"
+                + "max-in-flight: " + maxInFlight.get() + "\n"
+                + "queued: " + queued.get() + "\n"
+                + "max-queued: " + maxQueued.get() + "\n"
+                + String.format("mean-latency-ms: %.3f%n", meanMillis)
+                + String.format("max-latency-ms: %.3f%n", maxNanos.get() / 1_000_000.0)
+                + "parses: " + parserStats.getParses() + "\n"
+                + "ll-fallbacks: " + parserStats.getFallbacks() + "\n";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Virtual threads are looked up reflectively, the code base has to stay compatible with JDK 13.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package nl.han.ica.icss.daemon;
+
+import nl.han.ica.icss.cli.Arguments;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Thin client for {@link CompileDaemon}. It only reads the source file and posts it, so it
+ * starts quickly and loads none of the compiler classes.
+ *
+ * Usage: DaemonClient [-p port] source.icss [target.css]
+ * Without a target the CSS is written to standard output.
+ */
+public class DaemonClient {
+
+    private final URL compileUrl;
+
+    public DaemonClient(int port) throws IOException {
+        this.compileUrl = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, "/compile");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = CompileDaemon.DEFAULT_PORT;
+        Path source = null;
+        Path target = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-p")) {
+                    port = (int) Arguments.number(args, ++i, 1, 65535);
+                } else if (source == null) {
+                    source = Paths.get(Arguments.operand(args[i]));
+                } else if (target == null) {
+                    target = Paths.get(Arguments.operand(args[i]));
+                } else {
+                    throw new IllegalArgumentException("Too many arguments");
+                }
+            }
+            if (source == null) {
+                throw new IllegalArgumentException("No source file");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: DaemonClient [-p port] source.icss [target.css]");
+            System.exit(2);
+        }
+
+        Response response = new DaemonClient(port).compile(Files.readString(source, StandardCharsets.UTF_8));
+        if (!response.isSuccess()) {
+            System.err.print(response.body);
+            System.exit(1);
+        }
+        if (target == null) {
+            System.out.print(response.body);
+        } else {
+            Files.writeString(target, response.body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sends source to the daemon.
+     * @return the CSS on success, the diagnostics otherwise
+     */
+    public Response compile(String source) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) compileUrl.openConnection();
+        try {
+            byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String body = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (in != null) {
+                in.close();
+            }
+            return new Response(status, body);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Answer of the daemon: the status code and the CSS or the diagnostics.
+     */
+    public static class Response {
+        public final int status;
+        public final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public boolean isSuccess() {
+            return status == 200;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Binary file format of an AST, to load a parsed stylesheet again without running the parser.
+ *
+ * A file is the magic "ICSA", the format version, the string table and the nodes in pre-order.
+ * All numbers are varints, signed numbers zigzag encoded. The string table is the number of
+ * strings followed by the UTF-8 length and bytes of each. A node is its {@link NodeKind} code
+ * (one byte), the payload of its kind and the number of its children:
+ * <ul>
+ * <li>selectors, variable references, color literals: string id of the text</li>
+ * <li>declaration: string id of the property name, the expression is the only child</li>
+ * <li>bool, percentage, pixel and scalar literals: the value (signed)</li>
+ * <li>stylesheet and style rule: frame size</li>
+ * <li>variable reference: depth + 1 and slot + 1 after its string id, 0 while unresolved</li>
+ * </ul>
+ * The annotations of the {@link nl.han.ica.icss.checker.Checker} are stored too, so a file of a
+ * checked AST can be evaluated right after reading it.
+ */
+public final class BinaryAst {
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'I', 'C', 'S', 'A'};
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private BinaryAst() {
+    }
+
+    public static byte[] encode(AST ast) {
+        Writer nodes = new Writer();
+        ast.root.accept(nodes, null);
+
+        Bytes out = new Bytes();
+        for (byte b : MAGIC) {
+            out.write(b);
+        }
+        out.writeVarint(FORMAT_VERSION);
+        StringTable strings = nodes.strings;
+        out.writeVarint(strings.size());
+        for (int i = 0; i < strings.size(); i++) {
+            byte[] utf8 = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(utf8.length);
+            out.write(utf8, utf8.length);
+        }
+        out.write(nodes.bytes.array, nodes.bytes.size);
+        return Arrays.copyOf(out.array, out.size);
+    }
+
+    /**
+     * Writes ast to a temporary file that is moved into place, so readers never see half a file.
+     */
+    public static void write(AST ast, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, encode(ast));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads a file written by {@link #write(AST, Path)}. The file is memory-mapped, not copied.
+     * @throws IOException when the file cannot be read, is damaged or has another format version
+     */
+    public static AST read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads an AST from the remaining bytes of buffer.
+     * @throws IOException when the bytes are damaged or have another format version
+     */
+    public static AST decode(ByteBuffer buffer) throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a binary AST");
+                }
+            }
+            int version = readVarint(buffer);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Binary AST has format version " + version + ", expected " + FORMAT_VERSION);
+            }
+            String[] strings = new String[readLength(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[readLength(buffer)];
+                buffer.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            ASTNode root = readTree(buffer, strings);
+            if (!(root instanceof Stylesheet) || buffer.hasRemaining()) {
+                throw new IOException("Damaged binary AST");
+            }
+            return new AST((Stylesheet) root);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Damaged binary AST", e);
+        }
+    }
+
+    /**
+     * Reads the nodes of a subtree in pre-order. Without recursion, so a deeply nested file is
+     * read like any other instead of overflowing the stack.
+     */
+    private static ASTNode readTree(ByteBuffer in, String[] strings) throws IOException {
+        // The nodes whose children are being read and how many of their children are left
+        ArrayList<ASTNode> open = new ArrayList<>();
+        IntStack remaining = new IntStack();
+        open.add(readNode(in, strings));
+        remaining.push(readVarint(in));
+        while (true) {
+            int top = open.size() - 1;
+            int left = remaining.get(top);
+            if (left > 0) {
+                remaining.set(top, left - 1);
+                open.add(readNode(in, strings));
+                remaining.push(readVarint(in));
+            } else {
+                // Like the nodes of the AST builder, a node is added to its parent once it is complete
+                ASTNode node = open.remove(top);
+                remaining.truncate(top);
+                if (top == 0) {
+                    return node;
+                }
+                ASTNode parent = open.get(top - 1);
+                if (!accepts(parent, node)) {
+                    throw new IOException("Damaged binary AST: " + node.getClass().getSimpleName() + " in " + parent.getClass().getSimpleName());
+                }
+                parent.addChild(node);
+            }
+        }
+    }
+
+    /**
+     * Whether child can be the next child of parent in a tree the AST builder makes. Checked before
+     * addChild, which casts the children of some nodes and silently drops extra ones.
+     */
+    private static boolean accepts(ASTNode parent, ASTNode child) {
+        if (child instanceof Stylesheet) {
+            return false;
+        } else if (parent instanceof VariableAssignment) {
+            VariableAssignment assignment = (VariableAssignment) parent;
+            return assignment.name == null ? child instanceof VariableReference
+                    : assignment.expression == null && child instanceof Expression;
+        } else if (parent instanceof Operation) {
+            return ((Operation) parent).rhs == null && child instanceof Expression;
+        } else if (parent instanceof Declaration) {
+            return ((Declaration) parent).expression == null && child instanceof Expression;
+        } else if (parent instanceof IfClause) {
+            IfClause ifClause = (IfClause) parent;
+            if (ifClause.conditionalExpression == null) {
+                return child instanceof Expression;
+            }
+            return ifClause.elseClause == null && (isStatement(child) || child instanceof ElseClause);
+        } else if (parent instanceof ElseClause || parent instanceof Stylesheet) {
+            return isStatement(child);
+        } else if (parent instanceof Stylerule) {
+            return child instanceof Selector ? ((Stylerule) parent).body.isEmpty() : isStatement(child);
+        }
+        // Selectors, literals and variable references have no children
+        return false;
+    }
+
+    private static boolean isStatement(ASTNode node) {
+        return node instanceof Stylerule || node instanceof Declaration
+                || node instanceof VariableAssignment || node instanceof IfClause;
+    }
+
+    /**
+     * Reads the kind and payload of a node, up to its number of children.
+     */
+    private static ASTNode readNode(ByteBuffer in, String[] strings) throws IOException {
+        int code = in.get();
+        if (code < 0 || code >= KINDS.length) {
+            throw new IOException("Damaged binary AST: unknown node kind " + code);
+        }
+        switch (KINDS[code]) {
+            case STYLESHEET:
+                Stylesheet stylesheet = new Stylesheet();
+                stylesheet.frameSize = readVarint(in);
+                return stylesheet;
+            case STYLERULE:
+                Stylerule stylerule = new Stylerule();
+                stylerule.frameSize = readVarint(in);
+                return stylerule;
+            case TAG_SELECTOR:
+                return new TagSelector(strings[readVarint(in)]);
+            case CLASS_SELECTOR:
+                return new ClassSelector(strings[readVarint(in)]);
+            case ID_SELECTOR:
+                return new IdSelector(strings[readVarint(in)]);
+            case DECLARATION:
+                return new Declaration(strings[readVarint(in)]);
+            case VARIABLE_ASSIGNMENT:
+                return new VariableAssignment();
+            case VARIABLE_REFERENCE:
+                VariableReference reference = new VariableReference(strings[readVarint(in)]);
+                reference.depth = readVarint(in) - 1;
+                reference.slot = readVarint(in) - 1;
+                return reference;
+            case IF_CLAUSE:
+                return new IfClause();
+            case ELSE_CLAUSE:
+                return new ElseClause();
+            case BOOL_LITERAL:
+                return new BoolLiteral(readSignedVarint(in) != 0);
+            case COLOR_LITERAL:
+                return new ColorLiteral(strings[readVarint(in)]);
+            case PERCENTAGE_LITERAL:
+                return new PercentageLiteral(readSignedVarint(in));
+            case PIXEL_LITERAL:
+                return new PixelLiteral(readSignedVarint(in));
+            case SCALAR_LITERAL:
+                return new ScalarLiteral(readSignedVarint(in));
+            case ADD_OPERATION:
+                return new AddOperation();
+            case SUBTRACT_OPERATION:
+                return new SubtractOperation();
+            case MULTIPLY_OPERATION:
+                return new MultiplyOperation();
+        }
+        // Every kind has a case above
+        throw new AssertionError(KINDS[code]);
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Damaged binary AST: varint too long");
+    }
+
+    /**
+     * Reads a count of items of at least one byte, which cannot exceed the remaining bytes.
+     */
+    private static int readLength(ByteBuffer in) throws IOException {
+        int length = readVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Damaged binary AST: length " + length + " exceeds the file");
+        }
+        return length;
+    }
+
+    private static int readSignedVarint(ByteBuffer in) throws IOException {
+        int zigzag = readVarint(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Growable byte array.
+     */
+    private static class Bytes {
+        byte[] array = new byte[256];
+        int size;
+
+        void write(int b) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int length) {
+            if (size + length > array.length) {
+                array = Arrays.copyOf(array, Math.max(array.length * 2, size + length));
+            }
+            System.arraycopy(bytes, 0, array, size, length);
+            size += length;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+    }
+
+    /**
+     * Writes the visited node and its subtree in pre-order and collects their strings.
+     */
+    private static class Writer implements AstVisitor<Void, Void> {
+        final Bytes bytes = new Bytes();
+        final StringTable strings = new StringTable();
+
+        private void kind(NodeKind kind) {
+            bytes.write(kind.code());
+        }
+
+        private void string(String value) {
+            bytes.writeVarint(strings.intern(value));
+        }
+
+        private void children(ASTNode node) {
+            bytes.writeVarint(node.getChildCount());
+            for (int i = 0; i < node.getChildCount(); i++) {
+                node.getChild(i).accept(this, null);
+            }
+        }
+
+        @Override
+        public Void visitNode(ASTNode node, Void context) {
+            throw new IllegalArgumentException("Cannot write " + node.getNodeLabel());
+        }
+
+        @Override
+        public Void visitStylesheet(Stylesheet node, Void context) {
+            kind(NodeKind.STYLESHEET);
+            bytes.writeVarint(node.frameSize);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule node, Void context) {
+            kind(NodeKind.STYLERULE);
+            bytes.writeVarint(node.frameSize);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitTagSelector(TagSelector node, Void context) {
+            kind(NodeKind.TAG_SELECTOR);
+            string(node.tag);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitClassSelector(ClassSelector node, Void context) {
+            kind(NodeKind.CLASS_SELECTOR);
+            string(node.cls);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitIdSelector(IdSelector node, Void context) {
+            kind(NodeKind.ID_SELECTOR);
+            string(node.id);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration node, Void context) {
+            // The property name is stored in the declaration itself
+            kind(NodeKind.DECLARATION);
+            string(node.property.name);
+            bytes.writeVarint(node.expression != null ? 1 : 0);
+            if (node.expression != null) {
+                node.expression.accept(this, null);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment node, Void context) {
+            kind(NodeKind.VARIABLE_ASSIGNMENT);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableReference(VariableReference node, Void context) {
+            kind(NodeKind.VARIABLE_REFERENCE);
+            string(node.name);
+            bytes.writeVarint(node.depth + 1);
+            bytes.writeVarint(node.slot + 1);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause node, Void context) {
+            kind(NodeKind.IF_CLAUSE);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitElseClause(ElseClause node, Void context) {
+            kind(NodeKind.ELSE_CLAUSE);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitBoolLiteral(BoolLiteral node, Void context) {
+            kind(NodeKind.BOOL_LITERAL);
+            bytes.writeSignedVarint(node.value ? 1 : 0);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitColorLiteral(ColorLiteral node, Void context) {
+            kind(NodeKind.COLOR_LITERAL);
+            string(node.value);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitPercentageLiteral(PercentageLiteral node, Void context) {
+            kind(NodeKind.PERCENTAGE_LITERAL);
+            bytes.writeSignedVarint(node.value);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitPixelLiteral(PixelLiteral node, Void context) {
+            kind(NodeKind.PIXEL_LITERAL);
+            bytes.writeSignedVarint(node.value);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitScalarLiteral(ScalarLiteral node, Void context) {
+            kind(NodeKind.SCALAR_LITERAL);
+            bytes.writeSignedVarint(node.value);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitAddOperation(AddOperation node, Void context) {
+            kind(NodeKind.ADD_OPERATION);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitSubtractOperation(SubtractOperation node, Void context) {
+            kind(NodeKind.SUBTRACT_OPERATION);
+            children(node);
+            return null;
+        }
+
+        @Override
+        public Void visitMultiplyOperation(MultiplyOperation node, Void context) {
+            kind(NodeKind.MULTIPLY_OPERATION);
+            children(node);
+            return null;
+        }
+    }
+}
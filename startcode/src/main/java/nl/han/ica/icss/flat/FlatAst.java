@@ -0,0 +1,155 @@
+package nl.han.ica.icss.flat;
+
+import java.util.Arrays;
+
+/**
+ * AST stored in a few primitive arrays instead of one object per node, for stylesheets that are
+ * too large for the object AST. A node is an index into these arrays, about 21 bytes per node
+ * including its entry in the child array.
+ *
+ * Every node has a kind, an int value and an int extra, and a range of the child array that
+ * lists its children in the order of ASTNode.getChildren(). What value and extra mean depends on
+ * the kind:
+ * <ul>
+ * <li>literals: the value, 0/1 for booleans, the string id of the color</li>
+ * <li>selectors: string id of the selector text</li>
+ * <li>declaration: string id of the property name, the expression is the only child</li>
+ * <li>variable reference: string id of the name; extra is its slot, set by {@link FlatChecker}</li>
+ * <li>stylesheet and style rule: first slot of the scope (value) and number of slots (extra),
+ * set by {@link FlatChecker}</li>
+ * </ul>
+ * Node 0 is the root, the stylesheet.
+ */
+public class FlatAst {
+    public static final int ROOT = 0;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StringTable strings;
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int[] extras = new int[INITIAL_CAPACITY];
+    private int[] childStarts = new int[INITIAL_CAPACITY];
+    private int[] childCounts = new int[INITIAL_CAPACITY];
+    private int[] children = new int[INITIAL_CAPACITY];
+    private int size;
+    private int childrenSize;
+    // Number of variable slots needed to evaluate the tree, set by the checker
+    private int slotCount = -1;
+
+    public FlatAst() {
+        this(new StringTable());
+    }
+
+    /**
+     * Creates an empty tree that shares strings, so string ids of both trees are interchangeable.
+     */
+    public FlatAst(StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Appends a node without children.
+     * @return the new node
+     */
+    public int addNode(NodeKind kind, int value) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            childStarts = Arrays.copyOf(childStarts, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+        }
+        kinds[size] = kind.code();
+        values[size] = value;
+        extras[size] = -1;
+        return size++;
+    }
+
+    /**
+     * Sets the children of node to ids[from] up to ids[from + count].
+     */
+    public void setChildren(int node, int[] ids, int from, int count) {
+        if (childrenSize + count > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + count));
+        }
+        System.arraycopy(ids, from, children, childrenSize, count);
+        childStarts[node] = childrenSize;
+        childCounts[node] = count;
+        childrenSize += count;
+    }
+
+    /**
+     * Releases the unused capacity of the arrays once the tree is complete.
+     */
+    public void trimToSize() {
+        kinds = Arrays.copyOf(kinds, size);
+        values = Arrays.copyOf(values, size);
+        extras = Arrays.copyOf(extras, size);
+        childStarts = Arrays.copyOf(childStarts, size);
+        childCounts = Arrays.copyOf(childCounts, size);
+        children = Arrays.copyOf(children, childrenSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public NodeKind getKind(int node) {
+        return NodeKind.of(kinds[node]);
+    }
+
+    public int getValue(int node) {
+        return values[node];
+    }
+
+    public void setValue(int node, int value) {
+        values[node] = value;
+    }
+
+    public int getExtra(int node) {
+        return extras[node];
+    }
+
+    public void setExtra(int node, int extra) {
+        extras[node] = extra;
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public int getChild(int node, int index) {
+        if (index < 0 || index >= childCounts[node]) {
+            throw new IndexOutOfBoundsException("Child " + index + " of node " + node + " with " + childCounts[node] + " children");
+        }
+        return children[childStarts[node] + index];
+    }
+
+    public StringTable getStrings() {
+        return strings;
+    }
+
+    public String getString(int id) {
+        return strings.get(id);
+    }
+
+    /**
+     * @return the number of variable slots the evaluator needs, -1 when the tree has not been checked
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    void setSlotCount(int slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * @return bytes used by the arrays of this tree, excluding the strings
+     */
+    public long getArrayBytes() {
+        return kinds.length + 4L * (values.length + extras.length + childStarts.length + childCounts.length + children.length);
+    }
+}
@@ -0,0 +1,245 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * Converts between the object AST and the {@link FlatAst}. Only the structure is converted:
+ * variable slots, frame sizes and errors of the checkers are left out.
+ */
+public final class FlatAstConverter {
+
+    private FlatAstConverter() {
+    }
+
+    public static FlatAst toFlat(AST ast) {
+        ToFlat converter = new ToFlat();
+        ast.root.accept(converter, null);
+        converter.flat.trimToSize();
+        return converter.flat;
+    }
+
+    public static AST toAst(FlatAst flat) {
+        return new AST((Stylesheet) toNode(flat, FlatAst.ROOT));
+    }
+
+    private static ASTNode toNode(FlatAst flat, int node) {
+        int value = flat.getValue(node);
+        ASTNode result;
+        switch (flat.getKind(node)) {
+            case STYLESHEET:
+                result = new Stylesheet();
+                break;
+            case STYLERULE:
+                result = new Stylerule();
+                break;
+            case TAG_SELECTOR:
+                result = new TagSelector(flat.getString(value));
+                break;
+            case CLASS_SELECTOR:
+                result = new ClassSelector(flat.getString(value));
+                break;
+            case ID_SELECTOR:
+                result = new IdSelector(flat.getString(value));
+                break;
+            case DECLARATION:
+                result = new Declaration(flat.getString(value));
+                break;
+            case VARIABLE_ASSIGNMENT:
+                result = new VariableAssignment();
+                break;
+            case VARIABLE_REFERENCE:
+                result = new VariableReference(flat.getString(value));
+                break;
+            case IF_CLAUSE:
+                result = new IfClause();
+                break;
+            case ELSE_CLAUSE:
+                result = new ElseClause();
+                break;
+            case BOOL_LITERAL:
+                result = new BoolLiteral(value != 0);
+                break;
+            case COLOR_LITERAL:
+                result = new ColorLiteral(flat.getString(value));
+                break;
+            case PERCENTAGE_LITERAL:
+                result = new PercentageLiteral(value);
+                break;
+            case PIXEL_LITERAL:
+                result = new PixelLiteral(value);
+                break;
+            case SCALAR_LITERAL:
+                result = new ScalarLiteral(value);
+                break;
+            case ADD_OPERATION:
+                result = new AddOperation();
+                break;
+            case SUBTRACT_OPERATION:
+                result = new SubtractOperation();
+                break;
+            case MULTIPLY_OPERATION:
+                result = new MultiplyOperation();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown node kind " + flat.getKind(node));
+        }
+        for (int i = 0; i < flat.getChildCount(node); i++) {
+            result.addChild(toNode(flat, flat.getChild(node, i)));
+        }
+        return result;
+    }
+
+    /**
+     * Adds every visited node to the flat tree and pushes its id on pending, where its parent
+     * picks it up as a child. Nodes are numbered in pre-order.
+     */
+    private static class ToFlat implements AstVisitor<Void, Void> {
+        final FlatAst flat = new FlatAst();
+        private final IntStack pending = new IntStack();
+
+        private void add(ASTNode node, NodeKind kind, int value) {
+            int id = flat.addNode(kind, value);
+            int mark = pending.size();
+            for (int i = 0; i < node.getChildCount(); i++) {
+                node.getChild(i).accept(this, null);
+            }
+            finish(id, mark);
+        }
+
+        private void finish(int id, int mark) {
+            flat.setChildren(id, pending.array(), mark, pending.size() - mark);
+            pending.truncate(mark);
+            pending.push(id);
+        }
+
+        private int string(String value) {
+            return flat.getStrings().intern(value);
+        }
+
+        @Override
+        public Void visitNode(ASTNode node, Void context) {
+            throw new IllegalArgumentException("Cannot convert " + node.getNodeLabel());
+        }
+
+        @Override
+        public Void visitStylesheet(Stylesheet node, Void context) {
+            add(node, NodeKind.STYLESHEET, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitStylerule(Stylerule node, Void context) {
+            add(node, NodeKind.STYLERULE, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitTagSelector(TagSelector node, Void context) {
+            add(node, NodeKind.TAG_SELECTOR, string(node.tag));
+            return null;
+        }
+
+        @Override
+        public Void visitClassSelector(ClassSelector node, Void context) {
+            add(node, NodeKind.CLASS_SELECTOR, string(node.cls));
+            return null;
+        }
+
+        @Override
+        public Void visitIdSelector(IdSelector node, Void context) {
+            add(node, NodeKind.ID_SELECTOR, string(node.id));
+            return null;
+        }
+
+        @Override
+        public Void visitDeclaration(Declaration node, Void context) {
+            // The property name is stored in the declaration itself
+            int id = flat.addNode(NodeKind.DECLARATION, string(node.property.name));
+            int mark = pending.size();
+            if (node.expression != null) {
+                node.expression.accept(this, null);
+            }
+            finish(id, mark);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableAssignment(VariableAssignment node, Void context) {
+            add(node, NodeKind.VARIABLE_ASSIGNMENT, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableReference(VariableReference node, Void context) {
+            add(node, NodeKind.VARIABLE_REFERENCE, string(node.name));
+            return null;
+        }
+
+        @Override
+        public Void visitIfClause(IfClause node, Void context) {
+            add(node, NodeKind.IF_CLAUSE, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitElseClause(ElseClause node, Void context) {
+            add(node, NodeKind.ELSE_CLAUSE, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitBoolLiteral(BoolLiteral node, Void context) {
+            add(node, NodeKind.BOOL_LITERAL, node.value ? 1 : 0);
+            return null;
+        }
+
+        @Override
+        public Void visitColorLiteral(ColorLiteral node, Void context) {
+            add(node, NodeKind.COLOR_LITERAL, string(node.value));
+            return null;
+        }
+
+        @Override
+        public Void visitPercentageLiteral(PercentageLiteral node, Void context) {
+            add(node, NodeKind.PERCENTAGE_LITERAL, node.value);
+            return null;
+        }
+
+        @Override
+        public Void visitPixelLiteral(PixelLiteral node, Void context) {
+            add(node, NodeKind.PIXEL_LITERAL, node.value);
+            return null;
+        }
+
+        @Override
+        public Void visitScalarLiteral(ScalarLiteral node, Void context) {
+            add(node, NodeKind.SCALAR_LITERAL, node.value);
+            return null;
+        }
+
+        @Override
+        public Void visitAddOperation(AddOperation node, Void context) {
+            add(node, NodeKind.ADD_OPERATION, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitSubtractOperation(SubtractOperation node, Void context) {
+            add(node, NodeKind.SUBTRACT_OPERATION, 0);
+            return null;
+        }
+
+        @Override
+        public Void visitMultiplyOperation(MultiplyOperation node, Void context) {
+            add(node, NodeKind.MULTIPLY_OPERATION, 0);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.parser.ICSSBaseListener;
+import nl.han.ica.icss.parser.ICSSParser;
+
+/**
+ * Builds a {@link FlatAst} while the parser runs, as a parse listener of a parser that does not
+ * build a parse tree. Neither the parse tree nor the object AST exists at any time, so the memory
+ * needed for parsing is the flat tree plus the contexts of the rules that are still open.
+ *
+ * The tree is the one {@link FlatAstConverter#toFlat} makes of the AST of the
+ * {@link nl.han.ica.icss.parser.ASTListener}, but nodes are numbered in the order they are
+ * completed instead of in pre-order: a parse listener sees the left operand of an operation before
+ * the operation itself. The root is still node 0.
+ */
+public class FlatAstListener extends ICSSBaseListener {
+    private final FlatAst ast = new FlatAst();
+    // Completed nodes whose parent is still open
+    private final IntStack pending = new IntStack();
+    // Pairs of id and mark in pending of the open nodes
+    private final IntStack open = new IntStack();
+
+    /**
+     * @return the tree, complete once the parser has finished without syntax errors
+     */
+    public FlatAst getAST() {
+        return ast;
+    }
+
+    private void open(NodeKind kind) {
+        open.push(ast.addNode(kind, 0));
+        open.push(pending.size());
+    }
+
+    private void close() {
+        close(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Completes the innermost open node with at most maxChildren of the nodes completed since it was opened.
+     */
+    private void close(int maxChildren) {
+        int mark = open.get(open.size() - 1);
+        int id = open.get(open.size() - 2);
+        open.truncate(open.size() - 2);
+        ast.setChildren(id, pending.array(), mark, Math.min(pending.size() - mark, maxChildren));
+        pending.truncate(mark);
+        pending.push(id);
+    }
+
+    private void leaf(NodeKind kind, int value) {
+        pending.push(ast.addNode(kind, value));
+    }
+
+    private int string(String value) {
+        return ast.getStrings().intern(value);
+    }
+
+    @Override
+    public void enterStylesheet(ICSSParser.StylesheetContext ctx) {
+        open(NodeKind.STYLESHEET);
+    }
+
+    @Override
+    public void exitStylesheet(ICSSParser.StylesheetContext ctx) {
+        close();
+        ast.trimToSize();
+    }
+
+    @Override
+    public void enterStyleRule(ICSSParser.StyleRuleContext ctx) {
+        open(NodeKind.STYLERULE);
+    }
+
+    @Override
+    public void exitStyleRule(ICSSParser.StyleRuleContext ctx) {
+        close();
+    }
+
+    @Override
+    public void enterVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        open(NodeKind.VARIABLE_ASSIGNMENT);
+    }
+
+    @Override
+    public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
+        // Like VariableAssignment.addChild, keep the name and the first expression
+        close(2);
+    }
+
+    @Override
+    public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
+        leaf(NodeKind.VARIABLE_REFERENCE, string(ctx.getText()));
+    }
+
+    @Override
+    public void enterIfClause(ICSSParser.IfClauseContext ctx) {
+        open(NodeKind.IF_CLAUSE);
+    }
+
+    @Override
+    public void exitIfClause(ICSSParser.IfClauseContext ctx) {
+        close();
+    }
+
+    @Override
+    public void enterElseClause(ICSSParser.ElseClauseContext ctx) {
+        open(NodeKind.ELSE_CLAUSE);
+    }
+
+    @Override
+    public void exitElseClause(ICSSParser.ElseClauseContext ctx) {
+        close();
+    }
+
+    /**
+     * Without a parse tree a context only has its tokens as children, so an operation is an
+     * expression with an operator token. Both operands are complete when it exits.
+     */
+    @Override
+    public void exitExpression(ICSSParser.ExpressionContext ctx) {
+        NodeKind kind;
+        if (ctx.MUL() != null) {
+            kind = NodeKind.MULTIPLY_OPERATION;
+        } else if (ctx.PLUS() != null) {
+            kind = NodeKind.ADD_OPERATION;
+        } else if (ctx.MIN() != null) {
+            kind = NodeKind.SUBTRACT_OPERATION;
+        } else {
+            return;
+        }
+        int operation = ast.addNode(kind, 0);
+        int operands = pending.size() - 2;
+        ast.setChildren(operation, pending.array(), operands, 2);
+        pending.truncate(operands);
+        pending.push(operation);
+    }
+
+    @Override
+    public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
+        leaf(NodeKind.TAG_SELECTOR, string(ctx.getText()));
+    }
+
+    @Override
+    public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
+        leaf(NodeKind.CLASS_SELECTOR, string(ctx.getText()));
+    }
+
+    @Override
+    public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
+        leaf(NodeKind.ID_SELECTOR, string(ctx.getText()));
+    }
+
+    @Override
+    public void enterDeclaration(ICSSParser.DeclarationContext ctx) {
+        open(NodeKind.DECLARATION);
+    }
+
+    @Override
+    public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
+        close();
+    }
+
+    // The property name is stored in the declaration itself
+    @Override
+    public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
+        ast.setValue(open.get(open.size() - 2), string(ctx.getText()));
+    }
+
+    @Override
+    public void exitBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
+        leaf(NodeKind.BOOL_LITERAL, ctx.TRUE() != null ? 1 : 0);
+    }
+
+    @Override
+    public void exitColorLiteral(ICSSParser.ColorLiteralContext ctx) {
+        leaf(NodeKind.COLOR_LITERAL, string(ctx.getText()));
+    }
+
+    @Override
+    public void exitPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
+        String text = ctx.getText();
+        leaf(NodeKind.PERCENTAGE_LITERAL, Integer.parseInt(text.substring(0, text.length() - 1)));
+    }
+
+    @Override
+    public void exitPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
+        String text = ctx.getText();
+        leaf(NodeKind.PIXEL_LITERAL, Integer.parseInt(text.substring(0, text.length() - 2)));
+    }
+
+    @Override
+    public void exitScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
+        leaf(NodeKind.SCALAR_LITERAL, Integer.parseInt(ctx.getText()));
+    }
+}
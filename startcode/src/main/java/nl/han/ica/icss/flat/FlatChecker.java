@@ -0,0 +1,296 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.SemanticError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@link nl.han.ica.icss.checker.Checker} for a {@link FlatAst}, with the same rules and messages.
+ *
+ * Variables get a slot on one stack for the whole tree instead of a slot per scope. A scope's
+ * variables take the slots from the stack top at the moment the scope is opened, and closing it
+ * releases them again, so slots are shared by scopes that are never open at the same time.
+ */
+public class FlatChecker {
+    private static final ExpressionType[] EXPRESSION_TYPES = ExpressionType.values();
+
+    private FlatAst ast;
+    // Slot and type of every variable name that is bound in an open scope, indexed by string id
+    private int[] nameSlots;
+    private ExpressionType[] nameTypes;
+    // Names bound per open scope
+    private final IntStack boundNames = new IntStack();
+    // Pairs of name and previous type ordinal of the variables assigned in the open branches
+    private final IntStack replacedTypes = new IntStack();
+    // Type ordinals per name at the end of each branch of the if clause being merged, -1 if unassigned
+    private int[] ifPathTypes;
+    private int[] elsePathTypes;
+    private int branchDepth;
+    private int top;
+    private int maxTop;
+    private ArrayList<SemanticError> errors;
+
+    /**
+     * Checks ast and assigns slots to its variables.
+     * @return the errors, in the order the Checker reports them
+     */
+    public List<SemanticError> check(FlatAst ast) {
+        this.ast = ast;
+        nameSlots = new int[ast.getStrings().size()];
+        Arrays.fill(nameSlots, -1);
+        nameTypes = new ExpressionType[nameSlots.length];
+        ifPathTypes = new int[nameSlots.length];
+        Arrays.fill(ifPathTypes, -1);
+        elsePathTypes = ifPathTypes.clone();
+        boundNames.truncate(0);
+        replacedTypes.truncate(0);
+        branchDepth = 0;
+        top = 0;
+        maxTop = 0;
+        errors = new ArrayList<>();
+
+        checkScope(FlatAst.ROOT);
+        ast.setSlotCount(maxTop);
+        return errors;
+    }
+
+    private void checkScope(int node) {
+        int base = top;
+        int mark = boundNames.size();
+        checkBody(node, 0, ast.getChildCount(node));
+        ast.setValue(node, base);
+        ast.setExtra(node, top - base);
+
+        for (int i = mark; i < boundNames.size(); i++) {
+            nameSlots[boundNames.get(i)] = -1;
+        }
+        boundNames.truncate(mark);
+        top = base;
+    }
+
+    private void checkBody(int node, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int child = ast.getChild(node, i);
+            switch (ast.getKind(child)) {
+                case STYLERULE:
+                    checkScope(child);
+                    break;
+                case DECLARATION:
+                    checkDeclaration(child);
+                    break;
+                case VARIABLE_ASSIGNMENT:
+                    checkVariableAssignment(child);
+                    break;
+                case IF_CLAUSE:
+                    checkIfClause(child);
+                    break;
+                default:
+                    // Selectors
+                    break;
+            }
+        }
+    }
+
+    private void checkIfClause(int node) {
+        if (checkExpression(ast.getChild(node, 0)) != ExpressionType.BOOL) {
+            error(node, "If condition must be a boolean.");
+        }
+        int childCount = ast.getChildCount(node);
+        int last = ast.getChild(node, childCount - 1);
+        int typeMark = replacedTypes.size();
+        if (ast.getKind(last) == NodeKind.ELSE_CLAUSE) {
+            checkBranch(node, 1, childCount - 1);
+            int[] ifTypes = pathTypes(typeMark);
+            checkBranch(last, 0, ast.getChildCount(last));
+            mergeBranches(node, ifTypes, pathTypes(typeMark));
+        } else {
+            checkBranch(node, 1, childCount);
+            mergeBranches(node, pathTypes(typeMark), new int[0]);
+        }
+    }
+
+    /**
+     * Like in the Checker, a variable bound in a branch is only visible inside the branch, while an
+     * assignment to a variable bound outside it writes that variable's slot. The types of those
+     * variables are restored afterwards. The slots of the branch's own variables stay reserved until
+     * the enclosing scope closes.
+     */
+    private void checkBranch(int node, int from, int to) {
+        int mark = boundNames.size();
+        branchDepth++;
+        checkBody(node, from, to);
+        branchDepth--;
+        for (int i = mark; i < boundNames.size(); i++) {
+            nameSlots[boundNames.get(i)] = -1;
+        }
+        boundNames.truncate(mark);
+    }
+
+    /**
+     * Restores the types of the variables assigned in a branch since typeMark.
+     * @return pairs of name and type ordinal at the end of the branch of those variables
+     */
+    private int[] pathTypes(int typeMark) {
+        int[] types = new int[replacedTypes.size() - typeMark];
+        for (int i = 0; i < types.length; i += 2) {
+            int name = replacedTypes.get(typeMark + i);
+            types[i] = name;
+            types[i + 1] = nameTypes[name].ordinal();
+        }
+        for (int i = replacedTypes.size() - 2; i >= typeMark; i -= 2) {
+            nameTypes[replacedTypes.get(i)] = EXPRESSION_TYPES[replacedTypes.get(i + 1)];
+        }
+        replacedTypes.truncate(typeMark);
+        return types;
+    }
+
+    /**
+     * Like the Checker, gives a variable that a branch assigned the type both paths agree on, or
+     * reports that it changes type in a branch. Variables the branches bound themselves are out of
+     * scope again and skipped.
+     */
+    private void mergeBranches(int node, int[] ifTypes, int[] elseTypes) {
+        for (int i = 0; i < ifTypes.length; i += 2) {
+            ifPathTypes[ifTypes[i]] = ifTypes[i + 1];
+        }
+        for (int i = 0; i < elseTypes.length; i += 2) {
+            elsePathTypes[elseTypes[i]] = elseTypes[i + 1];
+        }
+        mergeNames(node, ifTypes);
+        mergeNames(node, elseTypes);
+    }
+
+    private void mergeNames(int node, int[] types) {
+        for (int i = 0; i < types.length; i += 2) {
+            int name = types[i];
+            if (ifPathTypes[name] < 0 && elsePathTypes[name] < 0) {
+                // Merged already
+                continue;
+            }
+            int before = nameTypes[name].ordinal();
+            int ifType = ifPathTypes[name] < 0 ? before : ifPathTypes[name];
+            int elseType = elsePathTypes[name] < 0 ? before : elsePathTypes[name];
+            ifPathTypes[name] = -1;
+            elsePathTypes[name] = -1;
+            if (nameSlots[name] < 0) {
+                continue;
+            }
+            if (ifType != elseType) {
+                error(node, "Variable " + ast.getString(name) + " changes type in a branch.");
+            } else if (ifType != before) {
+                assignType(name, EXPRESSION_TYPES[ifType]);
+            }
+        }
+    }
+
+    // Sets the type of a bound variable, to be restored when it is assigned in an enclosing branch
+    private void assignType(int name, ExpressionType type) {
+        if (branchDepth > 0) {
+            replacedTypes.push(name);
+            replacedTypes.push(nameTypes[name].ordinal());
+        }
+        nameTypes[name] = type;
+    }
+
+    private void checkDeclaration(int node) {
+        ExpressionType expressionType = ast.getChildCount(node) == 0
+                ? ExpressionType.UNDEFINED
+                : checkExpression(ast.getChild(node, 0));
+        String property = ast.getString(ast.getValue(node));
+
+        switch (property) {
+            case "color":
+            case "background-color":
+                if (expressionType != ExpressionType.COLOR) {
+                    error(node, property + " waarde moet een #HEX kleur zijn.");
+                }
+                break;
+            case "width":
+            case "height":
+                if (expressionType != ExpressionType.PIXEL && expressionType != ExpressionType.PERCENTAGE) {
+                    error(node, property + " waarde moet een pixel of percentage zijn.");
+                }
+                break;
+        }
+    }
+
+    private void checkVariableAssignment(int node) {
+        int reference = ast.getChild(node, 0);
+        ExpressionType expressionType = checkExpression(ast.getChild(node, 1));
+
+        if (expressionType == null || expressionType == ExpressionType.UNDEFINED) {
+            error(node, "Variable assignment is undefined/null.");
+            return;
+        }
+        // Like the evaluator, an assignment updates a variable that is already bound in any open scope
+        int name = ast.getValue(reference);
+        if (nameSlots[name] < 0) {
+            nameSlots[name] = top++;
+            maxTop = Math.max(maxTop, top);
+            boundNames.push(name);
+            nameTypes[name] = expressionType;
+        } else {
+            assignType(name, expressionType);
+        }
+        ast.setExtra(reference, nameSlots[name]);
+    }
+
+    private ExpressionType checkExpression(int node) {
+        switch (ast.getKind(node)) {
+            case VARIABLE_REFERENCE:
+                int name = ast.getValue(node);
+                if (nameSlots[name] < 0) {
+                    error(node, "Variable " + ast.getString(name) + " is out of scope.");
+                    return null;
+                }
+                ast.setExtra(node, nameSlots[name]);
+                return nameTypes[name];
+            case BOOL_LITERAL:
+                return ExpressionType.BOOL;
+            case COLOR_LITERAL:
+                return ExpressionType.COLOR;
+            case PERCENTAGE_LITERAL:
+                return ExpressionType.PERCENTAGE;
+            case PIXEL_LITERAL:
+                return ExpressionType.PIXEL;
+            case SCALAR_LITERAL:
+                return ExpressionType.SCALAR;
+            case ADD_OPERATION:
+            case SUBTRACT_OPERATION:
+                return checkOperation(node, false);
+            case MULTIPLY_OPERATION:
+                return checkOperation(node, true);
+            default:
+                return ExpressionType.UNDEFINED;
+        }
+    }
+
+    private ExpressionType checkOperation(int node, boolean multiply) {
+        ExpressionType left = checkExpression(ast.getChild(node, 0));
+        ExpressionType right = checkExpression(ast.getChild(node, 1));
+
+        if (left == ExpressionType.COLOR || right == ExpressionType.COLOR) {
+            error(node, "Colors are not allowed in operations.");
+            return ExpressionType.UNDEFINED;
+        } else if (multiply) {
+            if (left != ExpressionType.SCALAR && right != ExpressionType.SCALAR) {
+                error(node, "Multiply is only allowed with at least one scalar literal.");
+                return ExpressionType.UNDEFINED;
+            }
+            return right != ExpressionType.SCALAR ? right : left;
+        } else {
+            if (left != right) {
+                error(node, "You can only do add and subtract operations with the same literal.");
+                return ExpressionType.UNDEFINED;
+            }
+            return left;
+        }
+    }
+
+    private void error(int node, String description) {
+        errors.add(new SemanticError(description));
+    }
+}
@@ -0,0 +1,219 @@
+package nl.han.ica.icss.flat;
+
+import java.util.Arrays;
+
+/**
+ * The {@link nl.han.ica.icss.transforms.Evaluator} for a {@link FlatAst}. The input must have
+ * passed the {@link FlatChecker} without errors.
+ *
+ * The input is not changed. The result is a new tree that shares the string table of the input
+ * and contains only style rules with their selectors and declarations: first the top-level rules,
+ * then the nested rules, with the selectors of their enclosing rules in front.
+ */
+public class FlatEvaluator {
+    private FlatAst in;
+    private FlatAst out;
+    // Value of every variable slot as a literal, see literal(); 0 when not assigned
+    private long[] slots;
+    // Selectors of the rules being evaluated, as pairs of kind and string id
+    private final IntStack selectors = new IntStack();
+    // Declarations of the rules being evaluated, as triples of property, literal kind and value
+    private final IntStack declarations = new IntStack();
+    private final IntStack nestedRules = new IntStack();
+    private final IntStack scratch = new IntStack();
+
+    public FlatAst evaluate(FlatAst ast) {
+        if (ast.getSlotCount() < 0) {
+            throw new IllegalStateException("Variables have no slots, run the FlatChecker first");
+        }
+        in = ast;
+        out = new FlatAst(ast.getStrings());
+        slots = new long[ast.getSlotCount()];
+        selectors.truncate(0);
+        declarations.truncate(0);
+        nestedRules.truncate(0);
+
+        int root = out.addNode(NodeKind.STYLESHEET, 0);
+        IntStack rules = new IntStack();
+        for (int i = 0; i < in.getChildCount(FlatAst.ROOT); i++) {
+            int child = in.getChild(FlatAst.ROOT, i);
+            if (in.getKind(child) == NodeKind.VARIABLE_ASSIGNMENT) {
+                evaluateVariableAssignment(child);
+            } else if (in.getKind(child) == NodeKind.STYLERULE) {
+                rules.push(evaluateStylerule(child));
+            }
+        }
+        for (int i = 0; i < nestedRules.size(); i++) {
+            rules.push(nestedRules.get(i));
+        }
+        out.setChildren(root, rules.array(), 0, rules.size());
+        out.trimToSize();
+        return out;
+    }
+
+    /**
+     * @return the evaluated rule in the output tree
+     */
+    private int evaluateStylerule(int node) {
+        int selectorMark = selectors.size();
+        int declarationMark = declarations.size();
+        int base = in.getValue(node);
+        Arrays.fill(slots, base, base + in.getExtra(node), 0);
+
+        int childCount = in.getChildCount(node);
+        int firstStatement = 0;
+        while (firstStatement < childCount && isSelector(in.getKind(in.getChild(node, firstStatement)))) {
+            int selector = in.getChild(node, firstStatement++);
+            selectors.push(in.getKind(selector).code());
+            selectors.push(in.getValue(selector));
+        }
+        evaluateBody(node, firstStatement, childCount, declarationMark);
+
+        // All selectors on the stack belong to this rule: those of the enclosing rules and its own
+        int rule = out.addNode(NodeKind.STYLERULE, 0);
+        int mark = scratch.size();
+        for (int i = 0; i < selectors.size(); i += 2) {
+            scratch.push(out.addNode(NodeKind.of((byte) selectors.get(i)), selectors.get(i + 1)));
+        }
+        for (int i = declarationMark; i < declarations.size(); i += 3) {
+            int declaration = out.addNode(NodeKind.DECLARATION, declarations.get(i));
+            scratch.push(out.addNode(NodeKind.of((byte) declarations.get(i + 1)), declarations.get(i + 2)));
+            out.setChildren(declaration, scratch.array(), scratch.size() - 1, 1);
+            scratch.set(scratch.size() - 1, declaration);
+        }
+        out.setChildren(rule, scratch.array(), mark, scratch.size() - mark);
+        scratch.truncate(mark);
+        selectors.truncate(selectorMark);
+        declarations.truncate(declarationMark);
+        return rule;
+    }
+
+    private static boolean isSelector(NodeKind kind) {
+        return kind == NodeKind.TAG_SELECTOR || kind == NodeKind.CLASS_SELECTOR || kind == NodeKind.ID_SELECTOR;
+    }
+
+    private void evaluateBody(int node, int from, int to, int declarationMark) {
+        for (int i = from; i < to; i++) {
+            int child = in.getChild(node, i);
+            switch (in.getKind(child)) {
+                case VARIABLE_ASSIGNMENT:
+                    evaluateVariableAssignment(child);
+                    break;
+                case DECLARATION:
+                    evaluateDeclaration(child, declarationMark);
+                    break;
+                case IF_CLAUSE:
+                    evaluateIfClause(child, declarationMark);
+                    break;
+                case STYLERULE:
+                    nestedRules.push(evaluateStylerule(child));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void evaluateIfClause(int node, int declarationMark) {
+        boolean condition = value(evaluateExpression(in.getChild(node, 0))) != 0;
+        int childCount = in.getChildCount(node);
+        int last = in.getChild(node, childCount - 1);
+        boolean hasElse = in.getKind(last) == NodeKind.ELSE_CLAUSE;
+        if (condition) {
+            evaluateBody(node, 1, hasElse ? childCount - 1 : childCount, declarationMark);
+        } else if (hasElse) {
+            evaluateBody(last, 0, in.getChildCount(last), declarationMark);
+        }
+    }
+
+    /**
+     * A declaration replaces an earlier declaration of the same property in the same rule.
+     */
+    private void evaluateDeclaration(int node, int declarationMark) {
+        int property = in.getValue(node);
+        long literal = evaluateExpression(in.getChild(node, 0));
+        for (int i = declarationMark; i < declarations.size(); i += 3) {
+            if (declarations.get(i) == property) {
+                declarations.set(i + 1, kind(literal));
+                declarations.set(i + 2, value(literal));
+                return;
+            }
+        }
+        declarations.push(property);
+        declarations.push(kind(literal));
+        declarations.push(value(literal));
+    }
+
+    private void evaluateVariableAssignment(int node) {
+        long literal = evaluateExpression(in.getChild(node, 1));
+        slots[slot(in.getChild(node, 0))] = literal;
+    }
+
+    private int slot(int reference) {
+        int slot = in.getExtra(reference);
+        if (slot < 0) {
+            throw new IllegalStateException("Variable " + in.getString(in.getValue(reference)) + " has no slot, run the FlatChecker first");
+        }
+        return slot;
+    }
+
+    /**
+     * @return the value of the expression as a literal, see literal()
+     */
+    private long evaluateExpression(int node) {
+        NodeKind kind = in.getKind(node);
+        switch (kind) {
+            case VARIABLE_REFERENCE:
+                long literal = slots[slot(node)];
+                if (literal == 0) {
+                    throw new IllegalStateException("Variable " + in.getString(in.getValue(node)) + " has not been assigned");
+                }
+                return literal;
+            case ADD_OPERATION:
+            case SUBTRACT_OPERATION:
+            case MULTIPLY_OPERATION:
+                long left = evaluateExpression(in.getChild(node, 0));
+                long right = evaluateExpression(in.getChild(node, 1));
+                if (kind == NodeKind.ADD_OPERATION) {
+                    return withValue(left, numericValue(left) + numericValue(right));
+                } else if (kind == NodeKind.SUBTRACT_OPERATION) {
+                    return withValue(left, numericValue(left) - numericValue(right));
+                }
+                // The product has the unit of the operand that is not a scalar
+                long unit = kind(right) == NodeKind.SCALAR_LITERAL.code() ? left : right;
+                return withValue(unit, numericValue(left) * numericValue(right));
+            default:
+                return literal(kind, in.getValue(node));
+        }
+    }
+
+    private static int numericValue(long literal) {
+        int kind = kind(literal);
+        boolean numeric = kind == NodeKind.PIXEL_LITERAL.code() || kind == NodeKind.PERCENTAGE_LITERAL.code()
+                || kind == NodeKind.SCALAR_LITERAL.code();
+        return numeric ? value(literal) : 0;
+    }
+
+    private static long withValue(long literal, int value) {
+        int kind = kind(literal);
+        if (kind == NodeKind.PIXEL_LITERAL.code() || kind == NodeKind.SCALAR_LITERAL.code()) {
+            return literal(NodeKind.of((byte) kind), value);
+        }
+        return literal(NodeKind.PERCENTAGE_LITERAL, value);
+    }
+
+    // A literal is packed into a long: the kind in the high int, the value in the low int.
+    // Literal kinds are never 0, so 0 means no literal.
+
+    private static long literal(NodeKind kind, int value) {
+        return ((long) kind.code() << 32) | (value & 0xffffffffL);
+    }
+
+    private static int kind(long literal) {
+        return (int) (literal >>> 32);
+    }
+
+    private static int value(long literal) {
+        return (int) literal;
+    }
+}
@@ -0,0 +1,79 @@
+package nl.han.ica.icss.flat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The {@link nl.han.ica.icss.generator.Generator} for a {@link FlatAst} produced by the
+ * {@link FlatEvaluator}, with the same output.
+ */
+public class FlatGenerator {
+
+    public String generate(FlatAst ast) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            this.generate(ast, sb);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the CSS to out. out is not flushed or closed.
+     */
+    public void generate(FlatAst ast, Appendable out) throws IOException {
+        boolean first = true;
+        for (int i = 0; i < ast.getChildCount(FlatAst.ROOT); i++) {
+            int rule = ast.getChild(FlatAst.ROOT, i);
+            if (ast.getKind(rule) != NodeKind.STYLERULE) {
+                continue;
+            }
+            // Rules are separated by an empty line.
+            if (!first) {
+                out.append('\n');
+            }
+            first = false;
+            generateRule(ast, rule, out);
+        }
+    }
+
+    private void generateRule(FlatAst ast, int rule, Appendable out) throws IOException {
+        int childCount = ast.getChildCount(rule);
+        for (int i = 0; i < childCount; i++) {
+            int child = ast.getChild(rule, i);
+            NodeKind kind = ast.getKind(child);
+            if (kind == NodeKind.TAG_SELECTOR || kind == NodeKind.CLASS_SELECTOR || kind == NodeKind.ID_SELECTOR) {
+                out.append(ast.getString(ast.getValue(child))).append(' ');
+            }
+        }
+        out.append(" {\n");
+        for (int i = 0; i < childCount; i++) {
+            int child = ast.getChild(rule, i);
+            if (ast.getKind(child) == NodeKind.DECLARATION) {
+                out.append("  ").append(ast.getString(ast.getValue(child))).append(": ");
+                generateLiteral(ast, ast.getChild(child, 0), out);
+                out.append(";\n");
+            }
+        }
+        out.append("}\n");
+    }
+
+    private void generateLiteral(FlatAst ast, int literal, Appendable out) throws IOException {
+        switch (ast.getKind(literal)) {
+            case PERCENTAGE_LITERAL:
+                out.append(String.valueOf(ast.getValue(literal))).append('%');
+                break;
+            case COLOR_LITERAL:
+                out.append(ast.getString(ast.getValue(literal)));
+                break;
+            case PIXEL_LITERAL:
+                out.append(String.valueOf(ast.getValue(literal))).append("px");
+                break;
+            default:
+                // scalar: no output
+                break;
+        }
+    }
+}
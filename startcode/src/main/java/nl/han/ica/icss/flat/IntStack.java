@@ -0,0 +1,44 @@
+package nl.han.ica.icss.flat;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of ints, used as scratch space by the flat passes.
+ */
+final class IntStack {
+    private int[] elements = new int[64];
+    private int size;
+
+    void push(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    int get(int index) {
+        return elements[index];
+    }
+
+    void set(int index, int value) {
+        elements[index] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Drops everything above newSize.
+     */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * @return the backing array, valid up to size()
+     */
+    int[] array() {
+        return elements;
+    }
+}
@@ -0,0 +1,38 @@
+package nl.han.ica.icss.flat;
+
+/**
+ * Node types of a {@link FlatAst}, one per concrete node class of the object AST.
+ *
+ * The codes are stored in {@link BinaryAst} files: add new kinds at the end, and bump the format
+ * version when existing kinds change.
+ */
+public enum NodeKind {
+    STYLESHEET,
+    STYLERULE,
+    TAG_SELECTOR,
+    CLASS_SELECTOR,
+    ID_SELECTOR,
+    DECLARATION,
+    VARIABLE_ASSIGNMENT,
+    VARIABLE_REFERENCE,
+    IF_CLAUSE,
+    ELSE_CLAUSE,
+    BOOL_LITERAL,
+    COLOR_LITERAL,
+    PERCENTAGE_LITERAL,
+    PIXEL_LITERAL,
+    SCALAR_LITERAL,
+    ADD_OPERATION,
+    SUBTRACT_OPERATION,
+    MULTIPLY_OPERATION;
+
+    private static final NodeKind[] VALUES = values();
+
+    static NodeKind of(byte code) {
+        return VALUES[code];
+    }
+
+    byte code() {
+        return (byte) ordinal();
+    }
+}
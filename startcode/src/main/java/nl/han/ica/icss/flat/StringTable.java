@@ -0,0 +1,34 @@
+package nl.han.ica.icss.flat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Interned strings of a {@link FlatAst}: selectors, property names, variable names and colors.
+ * Every distinct string is stored once and referred to by its index.
+ */
+public class StringTable {
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    /**
+     * @return the id of value, added to the table when it is new
+     */
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    public String get(int id) {
+        return strings.get(id);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
@@ -5,68 +5,143 @@ import nl.han.ica.icss.ast.literals.ColorLiteral;
 import nl.han.ica.icss.ast.literals.PercentageLiteral;
 import nl.han.ica.icss.ast.literals.PixelLiteral;
 
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates CSS from a transformed AST. The output is written rule by rule to an
+ * {@link Appendable}, so streaming to a Writer, OutputStream or channel only needs
+ * a bounded buffer. Byte destinations are written by the generateTo methods, so that
+ * destinations that are both, like a PrintStream, are not ambiguous.
+ */
 public class Generator {
 
-    private final StringBuilder sb;
+    private static final int BUFFER_SIZE = 8192;
+
+    private Appendable out;
     private int indentationLevel;
 
     public Generator() {
-        this.sb = new StringBuilder();
         this.indentationLevel = 0;
     }
 
     public String generate(AST ast) {
-        this.generateNode(ast.root);
+        StringBuilder sb = new StringBuilder();
+        try {
+            this.generate(ast, sb);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
         return sb.toString();
     }
 
-    private void generateNode(ASTNode astNode) {
-        for (ASTNode node : astNode.getChildren()) {
+    /**
+     * Writes the CSS to out. out is not flushed or closed.
+     */
+    public void generate(AST ast, Appendable out) throws IOException {
+        this.out = out;
+        try {
+            this.generateNode(ast.root);
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * Writes the CSS to out as UTF-8. out is flushed but not closed.
+     */
+    public void generateTo(AST ast, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.generate(ast, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the CSS to channel as UTF-8. The channel is not closed.
+     */
+    public void generateTo(AST ast, WritableByteChannel channel) throws IOException {
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+        this.generate(ast, writer);
+        writer.flush();
+    }
+
+    private void generateNode(ASTNode astNode) throws IOException {
+        boolean first = true;
+        for (int i = 0; i < astNode.getChildCount(); i++) {
+            ASTNode node = astNode.getChild(i);
             if (node instanceof Stylerule) {
+                // Rules are separated by an empty line.
+                if (!first) {
+                    this.out.append('\n');
+                }
+                first = false;
                 this.generateSelector(node);
                 this.indentationLevel++;
                 this.generateDeclaration(node);
                 this.indentationLevel--;
-                this.sb.append("}\n\n");
+                this.out.append("}\n");
             }
         }
-        // Remove one \n character.
-        if (this.sb.length() > 1) {
-            this.sb.delete(this.sb.length() - 1, this.sb.length());
-        }
     }
 
-    private void generateSelector(ASTNode astNode) {
+    private void generateSelector(ASTNode astNode) throws IOException {
         Stylerule stylerule = (Stylerule) astNode;
 
         for (var selector : stylerule.selectors) {
-            sb.append(selector.toString()).append(" ");
+            this.out.append(selector.toString()).append(' ');
         }
 
-        this.sb.append(" {\n");
+        this.out.append(" {\n");
     }
 
-    private void generateDeclaration(ASTNode astNode) {
+    private void generateDeclaration(ASTNode astNode) throws IOException {
         String indent = "  ".repeat(indentationLevel);
-        for (ASTNode node : astNode.getChildren()) {
+        for (int i = 0; i < astNode.getChildCount(); i++) {
+            ASTNode node = astNode.getChild(i);
             if (node instanceof Declaration) {
                 Declaration declaration = (Declaration) node;
-                this.sb.append(indent).append(declaration.property.name).append(": ").append(this.expressionToString(declaration.expression)).append(";\n");
+                this.out.append(indent).append(declaration.property.name).append(": ");
+                this.generateExpression(declaration.expression);
+                this.out.append(";\n");
             }
         }
     }
 
-    private String expressionToString(Expression expression) {
-        if (expression instanceof PercentageLiteral) {
-            return ((PercentageLiteral) expression).value + "%";
+    private void generateExpression(Expression expression) throws IOException {
+        try {
+            expression.accept(EXPRESSION_WRITER, this.out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        if (expression instanceof ColorLiteral) {
-            return (((ColorLiteral) expression).value); // GEEN #, want die zit er al in.
+    }
+
+    // Writes the CSS value of a literal; scalars and anything else have no output
+    private static final AstVisitor<Void, Appendable> EXPRESSION_WRITER = new AstVisitor<>() {
+        @Override
+        public Void visitPercentageLiteral(PercentageLiteral node, Appendable out) {
+            return write(out, String.valueOf(node.value), "%");
         }
-        if (expression instanceof PixelLiteral) {
-            return ((PixelLiteral) expression).value + "px";
+
+        @Override
+        public Void visitColorLiteral(ColorLiteral node, Appendable out) {
+            return write(out, node.value, ""); // GEEN #, want die zit er al in.
         }
 
-        return ""; // scalar
-    }
-}
\ No newline at end of file
+        @Override
+        public Void visitPixelLiteral(PixelLiteral node, Appendable out) {
+            return write(out, String.valueOf(node.value), "px");
+        }
+
+        private Void write(Appendable out, String value, String unit) {
+            try {
+                out.append(value).append(unit);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+    };
+}
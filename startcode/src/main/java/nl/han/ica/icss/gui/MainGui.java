@@ -1,7 +1,5 @@
 package nl.han.ica.icss.gui;
 
-import com.google.common.io.Resources;
-
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -17,14 +15,11 @@ import nl.han.ica.icss.Pipeline;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.Charset;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
-//We use this google library, because it makes life so much easier when
-//reading the examples icss files as packaged resource
-
 @SuppressWarnings("restriction")
 public class MainGui extends Application {
 
@@ -120,10 +115,8 @@ public class MainGui extends Application {
             MenuItem levelItem = new MenuItem(level);
             levelItem.setOnAction(new EventHandler<ActionEvent>() {
                 public void handle(ActionEvent e) {
-                    try {
-                        ClassLoader classLoader = MainGui.class.getClassLoader();
-                        URL url = classLoader.getResource(level);
-                        inputPane.setText(Resources.toString(url, Charset.defaultCharset()));
+                    try (InputStream inputStream = MainGui.class.getClassLoader().getResourceAsStream(level)) {
+                        inputPane.setText(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
                     } catch (IOException ioe) {
                         feedbackPane.addLine(ioe.toString());
                     }
@@ -201,7 +194,8 @@ public class MainGui extends Application {
         if (pipeline.isParsed()) {
             feedbackPane.addLine("Parsing succeeded");
         }
-        astPane.update(pipeline.getAST());
+        feedbackPane.addLine(pipeline.getMetrics().getSummary());
+        astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
         updateToolbar();
     }
 
@@ -215,7 +209,8 @@ public class MainGui extends Application {
                 feedbackPane.addLine(e);
             }
         }
-        astPane.update(pipeline.getAST());
+        feedbackPane.addLine(pipeline.getMetrics().getSummary());
+        astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
         updateToolbar();
     }
 
@@ -226,7 +221,8 @@ public class MainGui extends Application {
        if (pipeline.isTransformed()) {
            feedbackPane.addLine("Transformation succeeded");
        }
-       astPane.update(pipeline.getAST());
+       feedbackPane.addLine(pipeline.getMetrics().getSummary());
+       astPane.update(pipeline.getAST(), pipeline.getDiagnostics());
        updateToolbar();
     }
 
@@ -235,6 +231,7 @@ public class MainGui extends Application {
         feedbackPane.addLine("Generating output...");
         outputPane.setText(pipeline.generate());
         feedbackPane.addLine("Generating succeeded");
+        feedbackPane.addLine(pipeline.getMetrics().getSummary());
         updateToolbar();
     }
 
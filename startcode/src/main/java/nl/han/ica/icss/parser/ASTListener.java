@@ -1,7 +1,7 @@
 package nl.han.ica.icss.parser;
 
 
-import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.HANArrayStack;
 import nl.han.ica.datastructures.IHANStack;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
@@ -25,7 +25,7 @@ public class ASTListener extends ICSSBaseListener {
 
     public ASTListener() {
         ast = new AST();
-        currentContainer = new HANStack<>();
+        currentContainer = new HANArrayStack<>();
     }
 
     public AST getAST() {
@@ -1,200 +1,259 @@
 package nl.han.ica.icss.transforms;
 
-import nl.han.ica.datastructures.HashmapTableLinked;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.*;
 import nl.han.ica.icss.ast.operations.*;
 
 import java.util.ArrayList;
-import java.util.List;
-
+import java.util.Arrays;
+
+/**
+ * Replaces expressions by their values, picks the branches of if clauses and flattens nested rules.
+ * The AST must have passed the {@link nl.han.ica.icss.checker.Checker} without errors: variables are
+ * read from and written to the frame slots it assigned to every reference.
+ *
+ * {@link #evaluate(AST)} does not change its input, so a checked AST can be evaluated any number
+ * of times, also by several evaluators at once. An Evaluator itself is not thread-safe.
+ */
 public class Evaluator implements Transform {
 
-    private final HashmapTableLinked<String, Literal> variableValues;
+    private final RuleBodyTransformer ruleBodyTransformer = new RuleBodyTransformer();
+    private final ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator();
+    // Values of the variables per scope depth, reused for every rule at the same depth
+    private Literal[][] frames;
 
     public Evaluator() {
-        variableValues = new HashmapTableLinked<>();
+        frames = new Literal[8][];
     }
 
+    /**
+     * Replaces the root of ast by the root of {@link #evaluate(AST)}.
+     */
     @Override
     public void apply(AST ast) {
-        Stylesheet stylesheet = ast.root;
-        this.transformStylesheet(stylesheet, ast);
+        ast.setRoot(this.evaluate(ast).root);
+    }
+
+    /**
+     * Evaluates ast into a new tree, ast is not changed. The new tree shares the nodes that need no
+     * evaluation with ast: selectors, literals and declarations of a literal. Neither tree may be
+     * changed while the other one is in use.
+     */
+    public AST evaluate(AST ast) {
+        return new AST(this.transformStylesheet(ast.root));
+    }
+
+    /**
+     * @return the value a variable of the stylesheet itself got in the last evaluate(), null when
+     * it was not assigned
+     */
+    public Literal getGlobal(VariableReference reference) {
+        this.resolved(reference);
+        if (reference.depth != 0) {
+            throw new IllegalArgumentException("Variable " + reference.name + " is not a variable of the stylesheet");
+        }
+        return this.frames[0][reference.slot];
     }
 
-    private void transformStylesheet(ASTNode astNode, AST ast) {
-        List<ASTNode> toRemove = new ArrayList<>();
-        this.variableValues.pushScope(); // Add scope voor stylesheet
+    private Stylesheet transformStylesheet(Stylesheet stylesheet) {
+        Stylesheet result = new Stylesheet();
+        ArrayList<ASTNode> nestedRules = new ArrayList<>();
+        this.enterFrame(0, stylesheet.frameSize); // Frame voor stylesheet
 
-        for (ASTNode child : astNode.getChildren()) {
+        for (int i = 0; i < stylesheet.getChildCount(); i++) {
+            ASTNode child = stylesheet.getChild(i);
             if (child instanceof VariableAssignment) {
                 this.transformVariableAssignment((VariableAssignment) child);
-                toRemove.add(child);
-                continue;
-            }
-
-            if (child instanceof Stylerule) {
-                this.transformStylerule((Stylerule) child, ast);
+            } else if (child instanceof Stylerule) {
+                Stylerule stylerule = (Stylerule) child;
+                result.addChild(this.transformStylerule(stylerule, stylerule.selectors, 1, nestedRules));
+            } else {
+                result.addChild(child);
             }
         }
 
-        this.variableValues.popScope(); // Remove scope voor  stylesheet
-
-        for (ASTNode rem : toRemove) {
-            astNode.removeChild(rem);
-        }
+        // Like the rules they were nested in, nested rules have been transformed already
+        result.body.addAll(nestedRules);
+        return result;
     }
 
-    private void transformStylerule(Stylerule stylerule, AST ast) {
-        ArrayList<ASTNode> toAdd = new ArrayList<>();
-        this.variableValues.pushScope(); // Add scope for stylerule
-
-        for (ASTNode child : stylerule.body) {
-            this.transformRuleBody(child, toAdd, ast, stylerule.selectors);
+    /**
+     * @param nestedRules receives the transformed rules nested in stylerule, each after its own nested rules
+     * @return the transformed rule, with selectors
+     */
+    private Stylerule transformStylerule(Stylerule stylerule, ArrayList<Selector> selectors, int depth,
+                                         ArrayList<ASTNode> nestedRules) {
+        RuleContext rule = new RuleContext(selectors, depth, nestedRules);
+        this.enterFrame(depth, stylerule.frameSize); // Frame for stylerule
+
+        for (int i = 0; i < stylerule.body.size(); i++) {
+            stylerule.body.get(i).accept(this.ruleBodyTransformer, rule);
         }
 
-        this.variableValues.popScope(); // Remove scope for stylerule
-        stylerule.body = toAdd;
+        Stylerule result = new Stylerule();
+        result.selectors = selectors;
+        result.body = rule.body;
+        return result;
     }
 
-    private void transformRuleBody(ASTNode astNode, ArrayList<ASTNode> parentBody, AST ast, ArrayList<Selector> parentSelectors) {
-        if (astNode instanceof VariableAssignment) {
-            this.transformVariableAssignment((VariableAssignment) astNode);
-            return;
+    /**
+     * Clears the frame at depth, a rule's frame is only reachable while the rule is being transformed.
+     */
+    private void enterFrame(int depth, int frameSize) {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
         }
+        Literal[] frame = frames[depth];
+        if (frame == null || frame.length < frameSize) {
+            frames[depth] = new Literal[Math.max(frameSize, 8)];
+        } else {
+            Arrays.fill(frame, 0, frameSize, null);
+        }
+    }
 
-        if (astNode instanceof Declaration) {
-            this.transformDeclaration((Declaration) astNode);
-            Declaration newDeclaration = (Declaration) astNode;
-            boolean isDeclarationUpdated = false;
-
-            for (int i = 0; i < parentBody.size(); i++) {
-                ASTNode node = parentBody.get(i);
-                if (node instanceof Declaration) {
-                    Declaration existingDeclaration = (Declaration) node;
-                    if (existingDeclaration.property.name.equals(newDeclaration.property.name)) {
-                        parentBody.set(i, newDeclaration);
-                        isDeclarationUpdated = true;
-                        break;
-                    }
+    private void transformDeclaration(Declaration declaration, ArrayList<ASTNode> parentBody) {
+        Literal value = this.transformExpression(declaration.expression);
+        Declaration newDeclaration = declaration;
+        if (value != declaration.expression) {
+            newDeclaration = new Declaration();
+            newDeclaration.property = declaration.property;
+            newDeclaration.expression = value;
+        }
+        boolean isDeclarationUpdated = false;
+
+        for (int i = 0; i < parentBody.size(); i++) {
+            ASTNode node = parentBody.get(i);
+            if (node instanceof Declaration) {
+                Declaration existingDeclaration = (Declaration) node;
+                if (existingDeclaration.property.name.equals(newDeclaration.property.name)) {
+                    parentBody.set(i, newDeclaration);
+                    isDeclarationUpdated = true;
+                    break;
                 }
             }
+        }
 
-            if (!isDeclarationUpdated) {
-                parentBody.add(newDeclaration);
-            }
-            return;
+        if (!isDeclarationUpdated) {
+            parentBody.add(newDeclaration);
         }
+    }
 
-        if (astNode instanceof IfClause) {
-            IfClause ifClause = (IfClause) astNode;
-            ifClause.conditionalExpression = this.transformExpression(ifClause.conditionalExpression);
+    private void transformIfClause(IfClause ifClause, RuleContext rule) {
+        BoolLiteral condition = (BoolLiteral) this.transformExpression(ifClause.conditionalExpression);
 
-            if (((BoolLiteral) ifClause.conditionalExpression).value) {
-                this.transformIfClause(ifClause, parentBody, ast, parentSelectors);
-            } else {
-                if (ifClause.elseClause == null) {
-                    ifClause.body.clear();
-                    return;
-                } else {
-                    ifClause.body = ifClause.elseClause.body;
-                }
+        // Transform the chosen branch once; doing it twice doubles the work for every nesting level.
+        ArrayList<ASTNode> branch = ifClause.body;
+        if (!condition.value) {
+            if (ifClause.elseClause == null) {
+                return;
             }
-
-            this.transformIfClause((IfClause) astNode, parentBody, ast, parentSelectors);
+            branch = ifClause.elseClause.body;
         }
-        if (astNode instanceof Stylerule) {
-            Stylerule nestedStylerule = (Stylerule) astNode;
-            ArrayList<Selector> newSelectors = new ArrayList<>(parentSelectors);
-            newSelectors.addAll(nestedStylerule.selectors);
-            nestedStylerule.selectors = newSelectors;
-            this.transformStylerule(nestedStylerule, ast);
-            ast.root.addChild(nestedStylerule);
-        }
-    }
 
-    private void transformIfClause(IfClause ifClause, ArrayList<ASTNode> parentBody, AST ast, ArrayList<Selector> parentSelectors) {
-        for (ASTNode child : ifClause.getChildren()) {
-            this.transformRuleBody(child, parentBody, ast, parentSelectors);
+        for (int i = 0; i < branch.size(); i++) {
+            branch.get(i).accept(this.ruleBodyTransformer, rule);
         }
     }
 
-    private void transformDeclaration(Declaration declaration) {
-        declaration.expression = this.transformExpression(declaration.expression);
+    private void transformNestedStylerule(Stylerule nestedStylerule, RuleContext parent) {
+        ArrayList<Selector> newSelectors = new ArrayList<>(parent.selectors);
+        newSelectors.addAll(nestedStylerule.selectors);
+        parent.nestedRules.add(this.transformStylerule(nestedStylerule, newSelectors, parent.depth + 1, parent.nestedRules));
     }
 
     private void transformVariableAssignment(VariableAssignment variableAssignment) {
-        Expression expression = variableAssignment.expression;
-        variableAssignment.expression = this.transformExpression(expression);
-        this.variableValues.putVariable(variableAssignment.name.name, (Literal) variableAssignment.expression);
+        VariableReference name = this.resolved(variableAssignment.name);
+        this.frames[name.depth][name.slot] = this.transformExpression(variableAssignment.expression);
     }
 
-    private Literal transformExpression(Expression expression) {
-        if (expression instanceof Operation) {
-            return this.transformOperation((Operation) expression);
+    private VariableReference resolved(VariableReference reference) {
+        if (reference.slot < 0) {
+            throw new IllegalStateException("Variable " + reference.name + " has no frame slot, run the checker first");
         }
+        return reference;
+    }
 
-        if (expression instanceof VariableReference) {
-            return this.variableValues.getVariable(((VariableReference) expression).name);
-        }
+    private Literal transformExpression(Expression expression) {
+        return expression.accept(this.expressionEvaluator, null);
+    }
 
-        return (Literal) expression;
+    /**
+     * Where a statement of a rule body ends up: the new body of the rule, which also collects the
+     * statements of its if clauses, or the nested rules of the stylesheet.
+     */
+    private static class RuleContext {
+        final ArrayList<Selector> selectors;
+        final int depth;
+        final ArrayList<ASTNode> body = new ArrayList<>();
+        final ArrayList<ASTNode> nestedRules;
+
+        RuleContext(ArrayList<Selector> selectors, int depth, ArrayList<ASTNode> nestedRules) {
+            this.selectors = selectors;
+            this.depth = depth;
+            this.nestedRules = nestedRules;
+        }
     }
 
-    private Literal transformOperation(Operation operation) {
-        Literal left;
-        Literal right;
+    private class RuleBodyTransformer implements AstVisitor<Void, RuleContext> {
+        @Override
+        public Void visitVariableAssignment(VariableAssignment node, RuleContext rule) {
+            transformVariableAssignment(node);
+            return null;
+        }
 
-        int leftValue;
-        int rightValue;
+        @Override
+        public Void visitDeclaration(Declaration node, RuleContext rule) {
+            transformDeclaration(node, rule.body);
+            return null;
+        }
 
-        if (operation.lhs instanceof VariableReference) {
-            left = this.variableValues.getVariable(((VariableReference) operation.lhs).name);
-        } else {
-            left = (Literal) operation.lhs;
+        @Override
+        public Void visitIfClause(IfClause node, RuleContext rule) {
+            transformIfClause(node, rule);
+            return null;
         }
 
-        if (operation.rhs instanceof VariableReference) {
-            right = this.variableValues.getVariable(((VariableReference) operation.rhs).name);
-        } else {
-            right = (Literal) operation.rhs;
+        @Override
+        public Void visitStylerule(Stylerule node, RuleContext rule) {
+            transformNestedStylerule(node, rule);
+            return null;
         }
+    }
 
-        leftValue = this.getLiteralValue(left);
-        rightValue = this.getLiteralValue(right);
+    private class ExpressionEvaluator implements AstVisitor<Literal, Void> {
+        @Override
+        public Literal visitLiteral(Literal node, Void context) {
+            return node;
+        }
 
-        if (operation instanceof AddOperation) {
-            return this.literalFromOperation(left, leftValue + rightValue);
-        } else if (operation instanceof SubtractOperation) {
-            return this.literalFromOperation(left, leftValue - rightValue);
-        } else {
-            if (right instanceof ScalarLiteral) {
-                return this.literalFromOperation(left, leftValue * rightValue);
-            } else {
-                return this.literalFromOperation(right, leftValue * rightValue);
-            }
+        @Override
+        public Literal visitVariableReference(VariableReference node, Void context) {
+            VariableReference reference = resolved(node);
+            return frames[reference.depth][reference.slot];
         }
-    }
 
-    private int getLiteralValue(Literal literal) {
-        if (literal instanceof PixelLiteral) {
-            return ((PixelLiteral) literal).value;
-        } else if (literal instanceof ScalarLiteral) {
-            return ((ScalarLiteral) literal).value;
-        } else if (literal instanceof PercentageLiteral) {
-            return ((PercentageLiteral) literal).value;
-        } else {
-            return 0;
+        // Operands can be operations themselves, e.g. 2px + 3px * 4
+        @Override
+        public Literal visitAddOperation(AddOperation node, Void context) {
+            Literal left = node.lhs.accept(this, null);
+            Literal right = node.rhs.accept(this, null);
+            return left.withValue(left.numericValue() + right.numericValue());
         }
-    }
 
-    private Literal literalFromOperation(Literal literal, int value) {
-        if (literal instanceof PixelLiteral) {
-            return new PixelLiteral(value);
-        } else if (literal instanceof ScalarLiteral) {
-            return new ScalarLiteral(value);
-        } else {
-            return new PercentageLiteral(value);
+        @Override
+        public Literal visitSubtractOperation(SubtractOperation node, Void context) {
+            Literal left = node.lhs.accept(this, null);
+            Literal right = node.rhs.accept(this, null);
+            return left.withValue(left.numericValue() - right.numericValue());
+        }
+
+        @Override
+        public Literal visitMultiplyOperation(MultiplyOperation node, Void context) {
+            Literal left = node.lhs.accept(this, null);
+            Literal right = node.rhs.accept(this, null);
+            // The product has the unit of the operand that is not a scalar
+            Literal unit = right instanceof ScalarLiteral ? left : right;
+            return unit.withValue(left.numericValue() * right.numericValue());
         }
     }
-}
\ No newline at end of file
+}
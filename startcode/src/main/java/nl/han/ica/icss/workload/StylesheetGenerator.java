@@ -0,0 +1,228 @@
+package nl.han.ica.icss.workload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Generates large, valid ICSS stylesheets for benchmarks and stress tests.
+ *
+ * The output follows ICSS.g4 and only uses constructs that pass the checker, so it can be
+ * compiled end to end: global variables of every type, a local variable per rule, arithmetic
+ * expressions, nested if/else clauses and nested style rules. The same settings and seed
+ * always produce the same stylesheet.
+ *
+ * Example: new StylesheetGenerator().rules(100_000).ifDepth(4).generate()
+ */
+public class StylesheetGenerator {
+
+    // Global variables cycle through these types, so every type is available with four or more variables
+    private static final String[] VARIABLE_PREFIXES = {"Size", "Ratio", "Tint", "Flag"};
+    private static final int SIZE = 0;
+    private static final int RATIO = 1;
+    private static final int TINT = 2;
+    private static final int FLAG = 3;
+    private static final String[] TAGS = {"p", "a", "div", "span", "li", "ul", "h1", "section"};
+
+    private int rules = 100;
+    private int variables = 8;
+    private int ifDepth = 1;
+    private int expressionLength = 3;
+    private int nestingDepth = 0;
+    private long seed = 42;
+
+    private Random random;
+
+    /**
+     * @param rules number of top-level style rules, default 100
+     */
+    public StylesheetGenerator rules(int rules) {
+        this.rules = requireNonNegative(rules, "rules");
+        return this;
+    }
+
+    /**
+     * @param variables number of global variables, at least 4, default 8
+     */
+    public StylesheetGenerator variables(int variables) {
+        if (variables < VARIABLE_PREFIXES.length) {
+            throw new IllegalArgumentException("variables must be at least " + VARIABLE_PREFIXES.length);
+        }
+        this.variables = variables;
+        return this;
+    }
+
+    /**
+     * @param ifDepth nesting depth of the if/else clauses in every rule, default 1
+     */
+    public StylesheetGenerator ifDepth(int ifDepth) {
+        this.ifDepth = requireNonNegative(ifDepth, "ifDepth");
+        return this;
+    }
+
+    /**
+     * @param expressionLength number of operands in the arithmetic expressions, default 3
+     */
+    public StylesheetGenerator expressionLength(int expressionLength) {
+        if (expressionLength < 1) {
+            throw new IllegalArgumentException("expressionLength must be at least 1");
+        }
+        this.expressionLength = expressionLength;
+        return this;
+    }
+
+    /**
+     * @param nestingDepth depth of the style rules nested inside every top-level rule, default 0
+     */
+    public StylesheetGenerator nestingDepth(int nestingDepth) {
+        this.nestingDepth = requireNonNegative(nestingDepth, "nestingDepth");
+        return this;
+    }
+
+    /**
+     * @param seed seed of the random choices, default 42
+     */
+    public StylesheetGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public String generate() {
+        StringBuilder out = new StringBuilder();
+        try {
+            generate(out);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public void generate(Appendable out) throws IOException {
+        random = new Random(seed);
+        generateVariables(out);
+        for (int i = 0; i < rules; i++) {
+            out.append('\n');
+            String selector;
+            switch (i % 3) {
+                case 0:
+                    selector = ".rule-" + i;
+                    break;
+                case 1:
+                    selector = "#rule-" + i;
+                    break;
+                default:
+                    selector = TAGS[random.nextInt(TAGS.length)];
+            }
+            generateRule(out, selector, nestingDepth, "", true);
+        }
+    }
+
+    private void generateVariables(Appendable out) throws IOException {
+        for (int i = 0; i < variables; i++) {
+            int type = i % VARIABLE_PREFIXES.length;
+            out.append(VARIABLE_PREFIXES[type]).append(Integer.toString(i)).append(" := ");
+            boolean first = i < VARIABLE_PREFIXES.length;
+            switch (type) {
+                case SIZE:
+                    out.append(first ? pixels() : expression(SIZE, i));
+                    break;
+                case RATIO:
+                    out.append(first ? percentage() : expression(RATIO, i));
+                    break;
+                case TINT:
+                    out.append(first || random.nextBoolean() ? color() : variable(TINT, i));
+                    break;
+                default:
+                    out.append(random.nextBoolean() ? "TRUE" : "FALSE");
+            }
+            out.append(";\n");
+        }
+    }
+
+    private void generateRule(Appendable out, String selector, int nesting, String indent, boolean local)
+            throws IOException {
+        String inner = indent + "  ";
+        out.append(indent).append(selector).append(" {\n");
+        if (local) {
+            out.append(inner).append("Local := ").append(expression(SIZE, variables)).append(";\n");
+            out.append(inner).append("width: Local;\n");
+        } else {
+            out.append(inner).append("width: ").append(expression(SIZE, variables)).append(";\n");
+        }
+        out.append(inner).append("height: ").append(expression(RATIO, variables)).append(";\n");
+        out.append(inner).append("color: ").append(colorValue()).append(";\n");
+        generateIfClause(out, ifDepth, inner);
+        if (nesting > 0) {
+            generateRule(out, ".child-" + nesting, nesting - 1, inner, false);
+        }
+        out.append(indent).append("}\n");
+    }
+
+    private void generateIfClause(Appendable out, int depth, String indent) throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        String inner = indent + "  ";
+        String condition = random.nextInt(8) == 0 ? (random.nextBoolean() ? "TRUE" : "FALSE") : variable(FLAG, variables);
+        out.append(indent).append("if[").append(condition).append("] {\n");
+        out.append(inner).append("background-color: ").append(colorValue()).append(";\n");
+        generateIfClause(out, depth - 1, inner);
+        out.append(indent).append("} else {\n");
+        out.append(inner).append("width: ").append(expression(SIZE, variables)).append(";\n");
+        out.append(indent).append("}\n");
+    }
+
+    /**
+     * @param type SIZE or RATIO
+     * @param defined only variables below this index may be used
+     * @return a sum of terms, some of them multiplied by a scalar
+     */
+    private String expression(int type, int defined) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < expressionLength; i++) {
+            if (i > 0) {
+                expression.append(random.nextBoolean() ? " + " : " - ");
+            }
+            String operand = random.nextBoolean() ? variable(type, defined) : (type == SIZE ? pixels() : percentage());
+            if (random.nextInt(4) == 0) {
+                expression.append(1 + random.nextInt(9)).append(" * ").append(operand);
+            } else {
+                expression.append(operand);
+            }
+        }
+        return expression.toString();
+    }
+
+    private String colorValue() {
+        return random.nextBoolean() ? variable(TINT, variables) : color();
+    }
+
+    /**
+     * @return a random global variable of type that is defined before index defined
+     */
+    private String variable(int type, int defined) {
+        int count = (defined - type + VARIABLE_PREFIXES.length - 1) / VARIABLE_PREFIXES.length;
+        int index = type + VARIABLE_PREFIXES.length * random.nextInt(count);
+        return VARIABLE_PREFIXES[type] + index;
+    }
+
+    private String pixels() {
+        return (1 + random.nextInt(999)) + "px";
+    }
+
+    private String percentage() {
+        return (1 + random.nextInt(100)) + "%";
+    }
+
+    private String color() {
+        return String.format("#%06x", random.nextInt(0x1000000));
+    }
+
+    private static int requireNonNegative(int value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return value;
+    }
+}
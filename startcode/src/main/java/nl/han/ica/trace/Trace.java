@@ -0,0 +1,160 @@
+package nl.han.ica.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Diagnostic tracing for the compiler internals.
+ *
+ * Tracing is configured once, at class initialization, with system properties:
+ * <ul>
+ *     <li>icss.trace: comma separated categories with an optional level, e.g. "scope,lookup:trace"
+ *     or "all". The default level is debug. Without this property tracing is off.</li>
+ *     <li>icss.trace.file: append messages to this file. Without it messages are kept in a ring buffer,
+ *     see {@link #snapshot()}.</li>
+ *     <li>icss.trace.buffer: capacity of the ring buffer, default 8192 messages.</li>
+ * </ul>
+ *
+ * The per category flags are constants, so guarding a call with them lets the JIT remove it
+ * entirely when the category is off:
+ * <pre>
+ * if (Trace.LOOKUP) {
+ *     Trace.log(TraceCategory.LOOKUP, TraceLevel.DEBUG, "Variable " + name + " found");
+ * }
+ * </pre>
+ */
+public final class Trace {
+
+    private static final TraceLevel DEFAULT_LEVEL = TraceLevel.DEBUG;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    // Most verbose enabled level per category, null when the category is off
+    private static final TraceLevel[] LEVELS = parseLevels(System.getProperty("icss.trace", ""));
+
+    public static final boolean SCOPE = LEVELS[TraceCategory.SCOPE.ordinal()] != null;
+    public static final boolean LOOKUP = LEVELS[TraceCategory.LOOKUP.ordinal()] != null;
+    public static final boolean TYPE = LEVELS[TraceCategory.TYPE.ordinal()] != null;
+
+    private static final long START = System.nanoTime();
+    private static final Writer FILE = openFile(System.getProperty("icss.trace.file"));
+    private static final String[] BUFFER = new String[FILE == null
+            ? Integer.getInteger("icss.trace.buffer", DEFAULT_BUFFER_SIZE) : 0];
+    private static long written;
+
+    private Trace() {
+    }
+
+    /**
+     * @return whether messages of category at level are recorded
+     */
+    public static boolean isEnabled(TraceCategory category, TraceLevel level) {
+        TraceLevel enabled = LEVELS[category.ordinal()];
+        return enabled != null && level.compareTo(enabled) <= 0;
+    }
+
+    /**
+     * Records message when its category and level are enabled.
+     */
+    public static void log(TraceCategory category, TraceLevel level, String message) {
+        if (!isEnabled(category, level)) {
+            return;
+        }
+        String line = String.format("%10.3f ms [%s] %s %s: %s", (System.nanoTime() - START) / 1_000_000.0,
+                Thread.currentThread().getName(), category, level, message);
+        synchronized (Trace.class) {
+            if (FILE != null) {
+                try {
+                    FILE.write(line);
+                    FILE.write(System.lineSeparator());
+                } catch (IOException e) {
+                    // Tracing must never break a compilation
+                }
+            } else if (BUFFER.length > 0) {
+                BUFFER[(int) (written % BUFFER.length)] = line;
+            }
+            written++;
+        }
+    }
+
+    /**
+     * @return the messages in the ring buffer, oldest first; empty when tracing to a file
+     */
+    public static synchronized List<String> snapshot() {
+        List<String> lines = new ArrayList<>();
+        long first = Math.max(0, written - BUFFER.length);
+        for (long i = first; i < written; i++) {
+            lines.add(BUFFER[(int) (i % BUFFER.length)]);
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the messages in the ring buffer to out, or flushes the trace file.
+     */
+    public static synchronized void dump(PrintStream out) {
+        if (FILE != null) {
+            flush();
+            return;
+        }
+        for (String line : snapshot()) {
+            out.println(line);
+        }
+    }
+
+    private static synchronized void flush() {
+        try {
+            FILE.flush();
+        } catch (IOException e) {
+            // Nothing sensible to do
+        }
+    }
+
+    static TraceLevel[] parseLevels(String property) {
+        TraceLevel[] levels = new TraceLevel[TraceCategory.values().length];
+        for (String setting : property.split(",")) {
+            setting = setting.trim().toUpperCase(Locale.ROOT);
+            if (setting.isEmpty()) {
+                continue;
+            }
+            String[] parts = setting.split(":", 2);
+            try {
+                TraceLevel level = parts.length == 2 ? TraceLevel.valueOf(parts[1].trim()) : DEFAULT_LEVEL;
+                String category = parts[0].trim();
+                if (category.equals("ALL")) {
+                    Arrays.fill(levels, level);
+                } else {
+                    levels[TraceCategory.valueOf(category).ordinal()] = level;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring unknown trace setting " + setting);
+            }
+        }
+        return levels;
+    }
+
+    private static Writer openFile(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(path),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+            Runtime.getRuntime().addShutdownHook(new Thread(Trace::flush));
+            return writer;
+        } catch (IOException e) {
+            System.err.println("Cannot open trace file " + path + ", tracing to memory: " + e.getMessage());
+            return null;
+        }
+    }
+}
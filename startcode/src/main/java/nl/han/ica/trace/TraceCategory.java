@@ -0,0 +1,13 @@
+package nl.han.ica.trace;
+
+/**
+ * What a trace message is about.
+ */
+public enum TraceCategory {
+    /** Scopes being opened and closed, variables being bound */
+    SCOPE,
+    /** Variable lookups */
+    LOOKUP,
+    /** Types derived by the checker */
+    TYPE
+}
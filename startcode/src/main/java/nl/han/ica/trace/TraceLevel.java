@@ -0,0 +1,10 @@
+package nl.han.ica.trace;
+
+/**
+ * Verbosity of a trace message, from least to most verbose.
+ */
+public enum TraceLevel {
+    INFO,
+    DEBUG,
+    TRACE
+}
@@ -0,0 +1,30 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANArrayQueueTest {
+
+	@Test
+	void testFifoAcrossWrapAroundAndGrowth() {
+		IHANQueue<Integer> queue = new HANArrayQueue<>(4);
+		int next = 0;
+		int expected = 0;
+		// Interleave so the front moves through the array before it has to grow
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 3; i++) {
+				queue.enqueue(next++);
+			}
+			assertEquals(expected++, queue.dequeue());
+			assertEquals(expected++, queue.dequeue());
+		}
+		assertEquals(next - expected, queue.getSize());
+		while (!queue.isEmpty()) {
+			assertEquals(expected, queue.peek());
+			assertEquals(expected++, queue.dequeue());
+		}
+		assertEquals(next, expected);
+		assertThrows(IllegalStateException.class, queue::dequeue);
+	}
+}
@@ -0,0 +1,23 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANArrayStackTest {
+
+	@Test
+	void testStackIsLifo() {
+		HANArrayStack<Integer> stack = new HANArrayStack<>(1);
+		for (int i = 0; i < 100; i++) {
+			stack.push(i);
+		}
+		assertEquals(100, stack.getSize());
+		for (int i = 99; i >= 0; i--) {
+			assertEquals(i, stack.peek());
+			assertEquals(i, stack.pop());
+		}
+		assertTrue(stack.isEmpty());
+		assertThrows(IllegalStateException.class, stack::pop);
+	}
+}
@@ -0,0 +1,33 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANLinkedListTest {
+
+	@Test
+	void testIndexedAccess() {
+		IHANLinkedList<String> list = new HANLinkedList<>();
+		assertEquals(0, list.getSize());
+		list.addFirst("c");
+		list.addFirst("a");
+		list.insert(1, "b");
+		list.insert(3, "d");
+		assertEquals(4, list.getSize());
+		assertEquals("a", list.get(0));
+		assertEquals("b", list.get(1));
+		assertEquals("d", list.get(3));
+
+		list.delete(1);
+		list.delete(2);
+		assertEquals(2, list.getSize());
+		assertEquals("a", list.getFirst());
+		assertEquals("c", list.get(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+
+		list.clear();
+		assertEquals(0, list.getSize());
+		assertThrows(RuntimeException.class, list::getFirst);
+	}
+}
@@ -0,0 +1,66 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANPersistentMapTest {
+
+	// "Aa" and "BB" have the same hash code, so all combinations of them collide
+	private static String collidingKey(int bits) {
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < 4; i++) {
+			key.append((bits & (1 << i)) == 0 ? "Aa" : "BB");
+		}
+		return key.toString();
+	}
+
+	@Test
+	void testBehavesLikeHashMapAndKeepsOldVersions() {
+		Random random = new Random(11);
+		Map<String, Integer> expected = new HashMap<>();
+		HANPersistentMap<String, Integer> actual = HANPersistentMap.empty();
+		List<Map<String, Integer>> expectedVersions = new ArrayList<>();
+		List<HANPersistentMap<String, Integer>> versions = new ArrayList<>();
+
+		for (int i = 0; i < 20000; i++) {
+			String key = random.nextBoolean() ? "Var" + random.nextInt(3000) : collidingKey(random.nextInt(16));
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				actual = actual.remove(key);
+			} else {
+				expected.put(key, i);
+				actual = actual.put(key, i);
+			}
+			assertEquals(expected.get(key), actual.get(key), "step " + i + ": " + key);
+			assertEquals(expected.size(), actual.size());
+			if (i % 1000 == 0) {
+				expectedVersions.add(new HashMap<>(expected));
+				versions.add(actual);
+			}
+		}
+
+		for (int i = 0; i < versions.size(); i++) {
+			for (Map.Entry<String, Integer> entry : expectedVersions.get(i).entrySet()) {
+				assertEquals(entry.getValue(), versions.get(i).get(entry.getKey()));
+			}
+			assertEquals(expectedVersions.get(i).size(), versions.get(i).size());
+		}
+	}
+
+	@Test
+	void testUnchangedMapIsReturned() {
+		HANPersistentMap<String, Integer> map = HANPersistentMap.<String, Integer>empty().put("Width", 1);
+		Integer value = map.get("Width");
+		assertSame(map, map.put("Width", value));
+		assertSame(map, map.remove("Height"));
+		assertTrue(map.remove("Width").isEmpty());
+		assertThrows(NullPointerException.class, () -> map.put("Height", null));
+	}
+}
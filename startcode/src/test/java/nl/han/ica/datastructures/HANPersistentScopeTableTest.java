@@ -0,0 +1,103 @@
+package nl.han.ica.datastructures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HANPersistentScopeTableTest {
+
+	/**
+	 * Reference model: one HashMap per scope, searched from the innermost scope outwards.
+	 */
+	private static class HashMapScopes<K, V> implements IHANSymbolTable<K, V> {
+		private final ArrayList<HashMap<K, V>> scopes = new ArrayList<>();
+
+		@Override
+		public void pushScope() {
+			scopes.add(new HashMap<>());
+		}
+
+		@Override
+		public void popScope() {
+			scopes.remove(scopes.size() - 1);
+		}
+
+		@Override
+		public void putVariable(K key, V value) {
+			for (int i = scopes.size() - 1; i >= 0; i--) {
+				if (scopes.get(i).containsKey(key)) {
+					scopes.get(i).put(key, value);
+					return;
+				}
+			}
+			scopes.get(scopes.size() - 1).put(key, value);
+		}
+
+		@Override
+		public V getVariable(K key) {
+			for (int i = scopes.size() - 1; i >= 0; i--) {
+				if (scopes.get(i).containsKey(key)) {
+					return scopes.get(i).get(key);
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public int getTotalAmountOfScopes() {
+			return scopes.size();
+		}
+	}
+
+	@Test
+	void testBehavesLikeAHashMapPerScope() {
+		Random random = new Random(7);
+		IHANSymbolTable<String, Integer> expected = new HashMapScopes<>();
+		IHANSymbolTable<String, Integer> actual = new HANPersistentScopeTable<>();
+
+		for (int i = 0; i < 2000; i++) {
+			String key = "Var" + random.nextInt(12);
+			int operation = random.nextInt(10);
+			if (operation < 2) {
+				expected.pushScope();
+				actual.pushScope();
+			} else if (operation < 4 && expected.getTotalAmountOfScopes() > 0) {
+				expected.popScope();
+				actual.popScope();
+			} else if (operation < 7 && expected.getTotalAmountOfScopes() > 0) {
+				expected.putVariable(key, i);
+				actual.putVariable(key, i);
+			}
+			assertEquals(expected.getTotalAmountOfScopes(), actual.getTotalAmountOfScopes());
+			assertEquals(expected.getVariable(key), actual.getVariable(key), "step " + i + ": " + key);
+		}
+	}
+
+	@Test
+	void testForksAreIndependent() {
+		HANPersistentScopeTable<String, Integer> table = new HANPersistentScopeTable<>();
+		table.pushScope();
+		table.putVariable("Width", 1);
+		table.pushScope();
+		table.define("Width", 2);
+
+		HANPersistentScopeTable<String, Integer> fork = table.fork();
+		fork.putVariable("Width", 3);
+		fork.popScope();
+		fork.putVariable("Width", 4);
+		fork.putVariable("Height", 5);
+
+		assertEquals(2, table.getVariable("Width"));
+		assertNull(table.getVariable("Height"));
+		assertEquals(2, table.getTotalAmountOfScopes());
+		table.popScope();
+		assertEquals(1, table.getVariable("Width"));
+
+		assertEquals(4, fork.getVariable("Width"));
+		assertEquals(1, fork.getTotalAmountOfScopes());
+	}
+}
@@ -0,0 +1,65 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.workload.StylesheetGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Time and memory budgets on large generated stylesheets. Excluded from the default build,
+ * run with: mvn -P stress test
+ */
+@Tag("stress")
+class CompilerStressTest {
+
+	@Test
+	void testManyRules() {
+		int rules = 100_000;
+		String input = new StylesheetGenerator().rules(rules).variables(1000).generate();
+
+		CompilationResult result = assertTimeoutPreemptively(Duration.ofSeconds(120),
+				() -> new Compiler().compile(input));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+
+		long allocated = result.getMetrics().getTotalAllocatedBytes();
+		assertTrue(allocated / rules < 64 * 1024, "Allocated " + allocated / rules + " bytes per rule");
+
+		// Keep the result reachable while measuring what it retains
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		long retained = runtime.totalMemory() - runtime.freeMemory();
+		assertTrue(retained < 1024L * 1024 * 1024, "Retained " + retained / (1024 * 1024) + " MiB");
+		assertNotNull(result.getCss());
+	}
+
+	@Test
+	void testDeepIfNesting() {
+		String input = new StylesheetGenerator().rules(100).ifDepth(64).generate();
+
+		CompilationResult result = assertTimeoutPreemptively(Duration.ofSeconds(60),
+				() -> new Compiler().compile(input));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+	}
+
+	@Test
+	void testLongExpressions() {
+		String input = new StylesheetGenerator().rules(100).expressionLength(1000).generate();
+
+		CompilationResult result = assertTimeoutPreemptively(Duration.ofSeconds(60),
+				() -> new Compiler().compile(input));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+	}
+
+	@Test
+	void testDeeplyNestedRules() {
+		String input = new StylesheetGenerator().rules(1000).nestingDepth(16).generate();
+
+		CompilationResult result = assertTimeoutPreemptively(Duration.ofSeconds(60),
+				() -> new Compiler().compile(input));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals(1000 * 17, result.getAST().root.body.size());
+	}
+}
@@ -0,0 +1,240 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.workload.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilerTest {
+
+	private static final String LEVEL0_CSS =
+			"p  {\n  background-color: #ffffff;\n  width: 500px;\n}\n\n" +
+			"a  {\n  color: #ff0000;\n}\n\n" +
+			"#menu  {\n  width: 520px;\n}\n\n" +
+			".menu  {\n  color: #000000;\n}\n";
+
+	private static final String LEVEL3_CSS =
+			"p  {\n  background-color: #000000;\n  width: 500px;\n  color: #124532;\n  height: 20px;\n}\n\n" +
+			"a  {\n  color: #ff0000;\n}\n\n" +
+			"#menu  {\n  width: 520px;\n}\n\n" +
+			".menu  {\n  color: #000000;\n  background-color: #ff0000;\n}\n";
+
+	static String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = CompilerTest.class.getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testCompileLevel0() throws IOException {
+		CompilationResult result = new Compiler().compile(readTestFile("level0.icss"));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals(LEVEL0_CSS, result.getCss());
+	}
+
+	@Test
+	void testCompileLevel2() throws IOException {
+		CompilationResult result = new Compiler().compile(readTestFile("level2.icss"));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertTrue(result.getCss().contains("#menu  {\n  width: 520px;\n}\n"), result.getCss());
+	}
+
+	@Test
+	void testCompileLevel3() throws IOException {
+		CompilationResult result = new Compiler().compile(readTestFile("level3.icss"));
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals(LEVEL3_CSS, result.getCss());
+	}
+
+	@Test
+	void testSemanticErrorStopsBeforeGenerate() {
+		CompilationResult result = new Compiler().compile("p { width: #ff0000; }");
+		assertFalse(result.isSuccess());
+		assertNull(result.getCss());
+		assertEquals(1, result.getErrors().size());
+		assertEquals(0, result.getPhaseNanos(Phase.GENERATE));
+	}
+
+	@Test
+	void testErrorBudgetStopsChecking() {
+		String input = "p { width: #ff0000; height: #ff0000; color: 10px; }";
+		assertEquals(List.of(
+				"ERROR: width waarde moet een pixel of percentage zijn.",
+				"ERROR: height waarde moet een pixel of percentage zijn.",
+				"ERROR: color waarde moet een #HEX kleur zijn."),
+				new Compiler().compile(input).getErrors());
+		assertEquals(List.of(
+				"ERROR: width waarde moet een pixel of percentage zijn.",
+				"ERROR: height waarde moet een pixel of percentage zijn.",
+				"ERROR: Checking stopped after 2 errors."),
+				new Compiler(2).compile(input).getErrors());
+	}
+
+	@Test
+	void testSyntaxErrorStopsBeforeCheck() {
+		CompilationResult result = new Compiler().compile("p { width: 10px ");
+		assertFalse(result.isSuccess());
+		assertFalse(result.getErrors().isEmpty());
+		assertEquals(0, result.getPhaseNanos(Phase.CHECK));
+	}
+
+	// The stats are shared by the JVM, so compiles on other threads can add to them as well
+	@Test
+	void testFallsBackToLLForSyntaxErrors() throws IOException {
+		ParserStats stats = Compiler.getParserStats();
+		long parses = stats.getParses();
+		assertTrue(new Compiler().compile(readTestFile("level3.icss")).isSuccess());
+		assertTrue(stats.getParses() >= parses + 1);
+
+		long fallbacks = stats.getFallbacks();
+		CompilationResult result = new Compiler().compile("p { width: 10px ");
+		assertTrue(stats.getFallbacks() >= fallbacks + 1);
+		assertTrue(result.getErrors().get(0).startsWith("Syntax error: "), result.getErrors().toString());
+	}
+
+	@Test
+	void testWarmUpCompilesTheBundledExample() throws IOException {
+		long parses = Compiler.getParserStats().getParses();
+		Compiler.warmUp(3);
+		assertTrue(Compiler.getParserStats().getParses() >= parses + 3);
+	}
+
+	@Test
+	void testCompileGeneratedStylesheet() {
+		String input = new StylesheetGenerator().rules(50).ifDepth(24).expressionLength(8).nestingDepth(3).generate();
+		CompilationResult result = new Compiler().compile(input);
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals(50 * 4, result.getAST().root.body.size());
+	}
+
+	@Test
+	void testAssignmentUpdatesEnclosingScopes() {
+		CompilationResult result = new Compiler().compile(
+				"W := 10px;\n" +
+				"p { W := 20px; L := 1px; a { L := L + 2px; width: W + L; } height: L; }\n" +
+				"q { width: W; }\n");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  height: 3px;\n}\n\n" +
+				"q  {\n  width: 20px;\n}\n\n" +
+				"p a  {\n  width: 23px;\n}\n", result.getCss());
+	}
+
+	@Test
+	void testVariableOfABranchIsOnlyVisibleInThatBranch() {
+		assertEquals("ERROR: Variable X is out of scope.",
+				new Compiler().compile("p { if [FALSE] { X := 1px; } width: X; }").getErrors().get(0));
+		assertEquals("ERROR: Variable X is out of scope.",
+				new Compiler().compile("p { if [FALSE] { X := 1px; } width: X + 2px; }").getErrors().get(0));
+		assertEquals("ERROR: Variable X is out of scope.",
+				new Compiler().compile("p { if [TRUE] { X := 1px; } else { width: X; } }").getErrors().get(0));
+
+		CompilationResult result = new Compiler().compile(
+				"W := 1px;\n" +
+				"p { if [FALSE] { X := 1px; } else { X := 2px; W := W + X; width: X; } height: W; }\n");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  width: 2px;\n  height: 3px;\n}\n", result.getCss());
+
+		// The else branch starts from the types before the if clause, not after its first branch
+		result = new Compiler().compile("X := 1px;\np { if [FALSE] { X := 10%; } else { width: X + 1px; X := 20%; } }\n");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  width: 2px;\n}\n", result.getCss());
+	}
+
+	@Test
+	void testBranchThatRunsUpdatesTheEnclosingVariable() {
+		CompilationResult result = new Compiler().compile(
+				"X := 10px;\n" +
+				"p { if [TRUE] { X := 20px; } width: X; if [FALSE] { X := 30px; } height: X; }\n" +
+				"a { width: X; }\n");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  width: 20px;\n  height: 20px;\n}\n\n" +
+				"a  {\n  width: 20px;\n}\n", result.getCss());
+	}
+
+	@Test
+	void testVariableMayNotChangeTypeInABranch() {
+		for (String source : List.of(
+				"X := 10px; p { if [TRUE] { X := #ff0000; } width: X; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } width: X + 1px; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } } a { width: X + 1px; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } else { X := 2px; } }")) {
+			assertEquals(List.of("ERROR: Variable X changes type in a branch."),
+					new Compiler().compile(source).getErrors(), source);
+		}
+
+		// Both paths agree on the new type
+		CompilationResult result = new Compiler().compile(
+				"X := 10px; p { if [TRUE] { X := 50%; } else { X := 20%; } width: X + 1%; } a { height: X; }");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  width: 51%;\n}\n\na  {\n  height: 50%;\n}\n", result.getCss());
+
+		// A nested if clause is merged into its branch first
+		result = new Compiler().compile(
+				"X := 10px; p { if [TRUE] { if [TRUE] { X := 50%; } else { X := 1%; } } else { X := 20%; } width: X; }");
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals("p  {\n  width: 50%;\n}\n", result.getCss());
+	}
+
+	@Test
+	void testRecordsEveryPhase() throws IOException {
+		PhaseMetrics metrics = new Compiler().compile(readTestFile("level3.icss")).getMetrics();
+		for (Phase phase : Phase.values()) {
+			assertTrue(metrics.hasRun(phase), phase.toString());
+			assertTrue(metrics.getWallNanos(phase) > 0, phase.toString());
+		}
+		assertTrue(metrics.getAllocatedBytes(Phase.PARSE) > 0);
+		assertTrue(metrics.getSummary().startsWith("lex "));
+	}
+
+	@Test
+	void testSharedInstanceIsThreadSafe() throws Exception {
+		Compiler compiler = new Compiler();
+		String input = readTestFile("level3.icss");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<CompilationResult>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				futures.add(executor.submit(() -> compiler.compile(input)));
+			}
+			for (Future<CompilationResult> future : futures) {
+				assertEquals(LEVEL3_CSS, future.get().getCss());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testEvaluationLeavesTheCheckedAstUnchanged() throws Exception {
+		AST ast = Compiler.parse(readTestFile("level3.icss"), new ArrayList<>(), new PhaseRecorder());
+		assertTrue(new Checker().check(ast).isEmpty());
+		String checked = ast.toString();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				futures.add(executor.submit(() -> new Generator().generate(new Evaluator().evaluate(ast))));
+			}
+			for (Future<String> future : futures) {
+				assertEquals(LEVEL3_CSS, future.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(checked, ast.toString());
+	}
+}
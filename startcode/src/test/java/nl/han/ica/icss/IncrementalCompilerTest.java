@@ -0,0 +1,105 @@
+package nl.han.ica.icss;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCompilerTest {
+
+	private static final String STYLESHEET =
+			"Wide := 500px;\n" +
+			"Accent := #ff0000;\n" +
+			"\n" +
+			"p {\n\tcolor: Accent;\n\twidth: Wide;\n}\n" +
+			"a {\n\tcolor: #00ff00;\n\theight: 20px;\n}\n" +
+			"div {\n\twidth: Wide + 10px;\n\tspan { color: #000000; }\n}\n";
+
+	private static void assertSameAsFullCompile(String source, CompilationResult incremental) {
+		CompilationResult full = new Compiler().compile(source);
+		assertEquals(full.getErrors(), incremental.getErrors());
+		assertEquals(full.getCss(), incremental.getCss());
+	}
+
+	@Test
+	void testFirstUpdateMatchesFullCompile() throws IOException {
+		for (String level : new String[]{"level0.icss", "level1.icss", "level3.icss"}) {
+			String source = CompilerTest.readTestFile(level);
+			assertSameAsFullCompile(source, new IncrementalCompiler().update(source));
+		}
+		assertSameAsFullCompile(STYLESHEET, new IncrementalCompiler().update(STYLESHEET));
+	}
+
+	@Test
+	void testEditRecompilesOnlyTheEditedRule() {
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		compiler.update(STYLESHEET);
+		assertEquals(5, compiler.getRecompiledChunks());
+
+		String edited = STYLESHEET.replace("height: 20px", "height: 30px");
+		assertSameAsFullCompile(edited, compiler.update(edited));
+		assertEquals(1, compiler.getRecompiledChunks());
+
+		assertSameAsFullCompile(edited, compiler.update(edited));
+		assertEquals(0, compiler.getRecompiledChunks());
+	}
+
+	@Test
+	void testChangedVariableRecompilesDependentRules() {
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		compiler.update(STYLESHEET);
+
+		String edited = STYLESHEET.replace("Wide := 500px", "Wide := 640px");
+		assertSameAsFullCompile(edited, compiler.update(edited));
+		// The assignment itself, p and div
+		assertEquals(3, compiler.getRecompiledChunks());
+	}
+
+	@Test
+	void testInsertedAndRemovedRules() {
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		compiler.update(STYLESHEET);
+
+		String inserted = STYLESHEET.replace("a {", "#menu { width: 10%; }\na {");
+		assertSameAsFullCompile(inserted, compiler.update(inserted));
+		assertEquals(1, compiler.getRecompiledChunks());
+
+		String removed = inserted.replace("a {\n\tcolor: #00ff00;\n\theight: 20px;\n}\n", "");
+		assertSameAsFullCompile(removed, compiler.update(removed));
+		assertEquals(0, compiler.getRecompiledChunks());
+	}
+
+	@Test
+	void testSemanticErrorsAreReportedPerRule() {
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		compiler.update(STYLESHEET);
+
+		String broken = STYLESHEET.replace("height: 20px", "height: #123456");
+		CompilationResult result = compiler.update(broken);
+		assertSameAsFullCompile(broken, result);
+		assertFalse(result.isSuccess());
+		assertEquals(1, compiler.getRecompiledChunks());
+	}
+
+	@Test
+	void testSyntaxErrorFallsBackToFullCompile() {
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		compiler.update(STYLESHEET);
+
+		String broken = STYLESHEET.replace("height: 20px;", "height: 20px");
+		assertSameAsFullCompile(broken, compiler.update(broken));
+		assertEquals(-1, compiler.getRecompiledChunks());
+
+		assertSameAsFullCompile(STYLESHEET, compiler.update(STYLESHEET));
+		assertEquals(5, compiler.getRecompiledChunks());
+	}
+
+	@Test
+	void testReassignedGlobalFallsBackToFullCompile() {
+		String source = "Wide := 500px;\np { Wide := 10px; width: Wide; }\na { width: Wide; }\n";
+		IncrementalCompiler compiler = new IncrementalCompiler();
+		assertSameAsFullCompile(source, compiler.update(source));
+		assertEquals(-1, compiler.getRecompiledChunks());
+	}
+}
@@ -0,0 +1,77 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AstInternerTest {
+
+	private static Declaration declaration(String property, int pixels) {
+		return (Declaration) new Declaration(property).addChild(
+				new MultiplyOperation().addChild(new PixelLiteral(pixels)).addChild(new ScalarLiteral(2)));
+	}
+
+	private static Stylerule rule(String tag, Declaration declaration) {
+		return (Stylerule) new Stylerule().addChild(new TagSelector(tag)).addChild(declaration);
+	}
+
+	@Test
+	void testSharesEqualSubtrees() {
+		Stylesheet sheet = new Stylesheet();
+		sheet.addChild(rule("p", declaration("width", 10)));
+		sheet.addChild(rule("a", declaration("width", 10)));
+		sheet.addChild(rule("p", declaration("width", 10)));
+
+		AstInterner interner = new AstInterner();
+		assertSame(sheet, interner.intern(sheet));
+
+		Stylerule p = (Stylerule) sheet.body.get(0);
+		Stylerule a = (Stylerule) sheet.body.get(1);
+		assertSame(p, sheet.body.get(2));
+		assertSame(p.body.get(0), a.body.get(0));
+		assertNotSame(p.selectors.get(0), a.selectors.get(0));
+		assertSame(p.body.get(0), interner.intern(declaration("width", 10)));
+	}
+
+	@Test
+	void testHashIsStructural() {
+		assertEquals(declaration("width", 10).hashCode(), declaration("width", 10).hashCode());
+		assertEquals(rule("p", declaration("width", 10)), rule("p", declaration("width", 10)));
+		assertNotEquals(rule("p", declaration("width", 10)), rule("p", declaration("width", 20)));
+	}
+
+	@Test
+	void testHashFollowsChangesOfNodesThatAreNotInterned() {
+		Stylerule changed = rule("p", declaration("width", 10));
+		int hash = changed.hashCode();
+		changed.addChild(declaration("height", 10));
+		((Declaration) changed.body.get(0)).expression = new PixelLiteral(20);
+
+		Stylerule expected = rule("p", (Declaration) new Declaration("width").addChild(new PixelLiteral(20)));
+		expected.addChild(declaration("height", 10));
+		assertNotEquals(hash, changed.hashCode());
+		assertEquals(expected.hashCode(), changed.hashCode());
+		assertEquals(expected, changed);
+	}
+
+	@Test
+	void testPropertyIsPartOfEquality() {
+		assertNotEquals(declaration("width", 10), declaration("height", 10));
+	}
+
+	@Test
+	void testResolvedReferencesToOtherVariablesDiffer() {
+		VariableReference outer = new VariableReference("W");
+		outer.depth = 0;
+		outer.slot = 0;
+		VariableReference inner = new VariableReference("W");
+		inner.depth = 1;
+		inner.slot = 0;
+		assertEquals(outer.hashCode(), inner.hashCode());
+		assertNotEquals(outer, inner);
+	}
+}
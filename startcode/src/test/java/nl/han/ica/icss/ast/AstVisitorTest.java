@@ -0,0 +1,38 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AstVisitorTest {
+
+	private static final AstVisitor<String, String> LABELS = new AstVisitor<>() {
+		@Override
+		public String visitNode(ASTNode node, String context) {
+			return context + "node";
+		}
+
+		@Override
+		public String visitLiteral(Literal node, String context) {
+			return context + "literal";
+		}
+
+		@Override
+		public String visitPixelLiteral(PixelLiteral node, String context) {
+			return context + "pixel";
+		}
+	};
+
+	@Test
+	void testDispatchesOnClassAndFallsBackToSuperclass() {
+		assertEquals("-pixel", new PixelLiteral(1).accept(LABELS, "-"));
+		assertEquals("-literal", new ScalarLiteral(1).accept(LABELS, "-"));
+		assertEquals("-node", new AddOperation().accept(LABELS, "-"));
+		assertEquals("-node", new TagSelector("p").accept(LABELS, "-"));
+		assertNull(new Stylesheet().accept(new AstVisitor<String, Void>() { }, null));
+	}
+}
@@ -0,0 +1,92 @@
+package nl.han.ica.icss.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilationCacheTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testRoundTrip() throws IOException {
+		CompilationCache cache = new CompilationCache(directory, 1024 * 1024);
+		assertNull(cache.get("p { width: 10px; }"));
+
+		cache.put("p { width: 10px; }", Collections.emptyList(), "p  {\n  width: 10px;\n}\n");
+		cache.put("p { width: #ff0000; }", Collections.singletonList("ERROR: width"), null);
+
+		CompilationCache.Entry success = cache.get("p { width: 10px; }");
+		assertTrue(success.isSuccess());
+		assertEquals("p  {\n  width: 10px;\n}\n", success.css);
+
+		CompilationCache.Entry failure = cache.get("p { width: #ff0000; }");
+		assertFalse(failure.isSuccess());
+		assertEquals(Collections.singletonList("ERROR: width"), failure.errors);
+
+		// A second instance on the same directory sees the same entries
+		assertNotNull(new CompilationCache(directory, 1024 * 1024).get("p { width: 10px; }"));
+	}
+
+	@Test
+	void testEvictsLeastRecentlyUsed() throws Exception {
+		String css = "x".repeat(1000);
+		CompilationCache probe = new CompilationCache(directory.resolve("probe"), Long.MAX_VALUE);
+		probe.put("a", Collections.emptyList(), css);
+		long entrySize = probe.size();
+
+		// Access times an hour ago, minutes apart, so the order does not depend on the timestamp resolution
+		long hourAgo = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+		CompilationCache cache = new CompilationCache(directory.resolve("cache"), entrySize * 7 / 2);
+		String[] sources = {"a", "b", "c"};
+		for (int i = 0; i < sources.length; i++) {
+			cache.put(sources[i], Collections.emptyList(), css);
+			Files.setLastModifiedTime(cache.entryPathOf(sources[i]), FileTime.fromMillis(hourAgo + TimeUnit.MINUTES.toMillis(i)));
+		}
+		assertNotNull(cache.get("a"));
+		cache.put("d", Collections.emptyList(), css);
+
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+		assertEquals(3 * entrySize, cache.size());
+	}
+
+	@Test
+	void testFingerprintChangesWithTheCompilerClasses() throws IOException {
+		Path classes = directory.resolve("classes");
+		Files.createDirectories(classes.resolve("nl/han/ica/icss"));
+		Files.write(classes.resolve("nl/han/ica/icss/Compiler.class"), new byte[]{1, 2, 3});
+		Files.write(classes.resolve("Other.class"), new byte[]{4});
+		String fingerprint = CompilationCache.compilerFingerprint(classes);
+
+		// The same classes in a jar, with other timestamps, have the same fingerprint
+		Path jar = directory.resolve("compiler.jar");
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+			out.putNextEntry(new JarEntry("nl/han/ica/icss/Compiler.class"));
+			out.write(new byte[]{1, 2, 3});
+			out.closeEntry();
+		}
+		assertEquals(fingerprint, CompilationCache.compilerFingerprint(jar));
+
+		Files.write(classes.resolve("Other.class"), new byte[]{5});
+		assertEquals(fingerprint, CompilationCache.compilerFingerprint(classes));
+		try (OutputStream out = Files.newOutputStream(classes.resolve("nl/han/ica/icss/Compiler.class"))) {
+			out.write(new byte[]{1, 2, 4});
+		}
+		assertNotEquals(fingerprint, CompilationCache.compilerFingerprint(classes));
+	}
+}
@@ -0,0 +1,35 @@
+package nl.han.ica.icss.cli;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentsTest {
+
+	@Test
+	void testReadsOptionValues() {
+		String[] args = {"-o", "out", "-j", "4", "src"};
+		assertEquals("out", Arguments.value(args, 1));
+		assertEquals(4, Arguments.number(args, 3, 1, 8));
+		assertEquals("src", Arguments.operand(args[4]));
+	}
+
+	@Test
+	void testRejectsBadArgumentsWithAMessage() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> Arguments.value(new String[]{"src", "-o"}, 2));
+		assertEquals("Missing value for -o", e.getMessage());
+
+		e = assertThrows(IllegalArgumentException.class, () -> Arguments.number(new String[]{"-j", "many"}, 1, 1, 8));
+		assertEquals("-j needs a number, not many", e.getMessage());
+
+		e = assertThrows(IllegalArgumentException.class, () -> Arguments.number(new String[]{"-j", "0"}, 1, 1, 8));
+		assertEquals("-j must be between 1 and 8", e.getMessage());
+
+		e = assertThrows(IllegalArgumentException.class, () -> Arguments.number(new String[]{"--debounce", "-1"}, 1, 0, Long.MAX_VALUE));
+		assertEquals("--debounce must be at least 0", e.getMessage());
+
+		e = assertThrows(IllegalArgumentException.class, () -> Arguments.operand("--fast"));
+		assertEquals("Unknown option --fast", e.getMessage());
+	}
+}
@@ -0,0 +1,113 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.cache.CompilationCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCompilerTest {
+
+	private static final String VALID = "p { width: 10px; }";
+	private static final String VALID_CSS = "p  {\n  width: 10px;\n}\n";
+	private static final String INVALID = "p { width: #ff0000; }";
+	private static final String INVALID_ERROR = "ERROR: width waarde moet een pixel of percentage zijn.";
+
+	@TempDir
+	Path directory;
+
+	private Path write(String relative, String content) throws IOException {
+		Path file = directory.resolve("src").resolve(relative);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+		return file;
+	}
+
+	@Test
+	void testReportsDiagnosticsInPathOrder() throws Exception {
+		Path c = write("c.icss", INVALID);
+		Path a = write("a.icss", INVALID);
+		Path b = write("b/b.icss", VALID);
+		Path bb = write("b/a.icss", INVALID);
+
+		BatchCompiler batchCompiler = new BatchCompiler(directory.resolve("src"), null, 4);
+		assertEquals(List.of(a, bb, b, c), batchCompiler.findSources());
+
+		PrintStream err = System.err;
+		PrintStream out = System.out;
+		ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+		boolean succeeded;
+		try {
+			System.setErr(new PrintStream(diagnostics, true, StandardCharsets.UTF_8));
+			System.setOut(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+			succeeded = batchCompiler.run();
+		} finally {
+			System.setErr(err);
+			System.setOut(out);
+		}
+		assertFalse(succeeded);
+		assertEquals(a + ": " + INVALID_ERROR + System.lineSeparator()
+				+ bb + ": " + INVALID_ERROR + System.lineSeparator()
+				+ c + ": " + INVALID_ERROR + System.lineSeparator(),
+				diagnostics.toString(StandardCharsets.UTF_8));
+		assertEquals(VALID_CSS, Files.readString(directory.resolve("src/b/b.css")));
+	}
+
+	@Test
+	void testMirrorsSourcesIntoTheOutputRoot() throws Exception {
+		Path source = write("pages/home/main.icss", VALID);
+		Path output = directory.resolve("out");
+		BatchCompiler batchCompiler = new BatchCompiler(directory.resolve("src"), output, 2);
+
+		assertEquals(output.resolve("pages/home/main.css"), batchCompiler.targetFor(source));
+		assertTrue(batchCompiler.compileFile(source).isSuccess());
+		assertEquals(VALID_CSS, Files.readString(output.resolve("pages/home/main.css")));
+		assertFalse(Files.exists(directory.resolve("src/pages/home/main.css")));
+	}
+
+	@Test
+	void testKeepsTheOldTargetWhenCompilationFails() throws IOException {
+		Path source = write("main.icss", VALID);
+		BatchCompiler batchCompiler = new BatchCompiler(directory.resolve("src"), null, 1);
+		assertTrue(batchCompiler.compileFile(source).isSuccess());
+
+		Files.writeString(source, INVALID);
+		BatchCompiler.FileResult result = batchCompiler.compileFile(source);
+		assertEquals(List.of(INVALID_ERROR), result.errors);
+		assertEquals(VALID_CSS, Files.readString(directory.resolve("src/main.css")));
+		// No temporary files are left behind
+		try (var files = Files.list(directory.resolve("src"))) {
+			assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	void testTakesCachedResultsWithoutCompiling() throws IOException {
+		CompilationCache cache = new CompilationCache(directory.resolve("cache"), 1024 * 1024);
+		Path source = write("main.icss", VALID);
+		Path target = directory.resolve("src/main.css");
+
+		BatchCompiler batchCompiler = new BatchCompiler(directory.resolve("src"), null, 1, cache);
+		assertTrue(batchCompiler.compileFile(source).isSuccess());
+		assertEquals(VALID_CSS, Files.readString(target));
+		assertEquals(VALID_CSS, cache.get(VALID).css);
+
+		// An entry the compiler would not produce shows that the cache was used
+		cache.put(VALID, Collections.emptyList(), "p { from: cache; }\n");
+		assertTrue(new BatchCompiler(directory.resolve("src"), null, 1, cache).compileFile(source).isSuccess());
+		assertEquals("p { from: cache; }\n", Files.readString(target));
+
+		cache.put(VALID, List.of("ERROR: cached"), null);
+		assertEquals(List.of("ERROR: cached"), batchCompiler.compileFile(source).errors);
+		assertEquals("p { from: cache; }\n", Files.readString(target));
+	}
+}
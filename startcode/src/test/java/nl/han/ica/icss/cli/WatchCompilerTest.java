@@ -0,0 +1,75 @@
+package nl.han.ica.icss.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WatchCompilerTest {
+
+	@TempDir
+	Path directory;
+
+	private Path write(String relative, String content) throws IOException {
+		Path file = directory.resolve("src").resolve(relative);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+		return file;
+	}
+
+	@Test
+	void testCoalescesABurstOfEvents() throws Exception {
+		Path a = write("a.icss", "p { width: 1px; }");
+		Path b = write("b/b.icss", "p { width: 1px; }");
+		try (WatchCompiler watchCompiler = new WatchCompiler(directory.resolve("src"), null, 1000)) {
+			watchCompiler.build();
+
+			// Saves that are closer together than the debounce interval end up in one batch
+			Thread editor = new Thread(() -> {
+				try {
+					for (int i = 2; i < 5; i++) {
+						Files.writeString(a, "p { width: " + i + "px; }");
+						Thread.sleep(100);
+					}
+					Files.writeString(b, "p { width: 5px; }");
+				} catch (IOException | InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			editor.start();
+			Set<Path> touched = watchCompiler.awaitChanges();
+			editor.join();
+			assertEquals(List.of(a, b), List.copyOf(touched));
+
+			watchCompiler.update(touched);
+			assertEquals("p  {\n  width: 4px;\n}\n", Files.readString(directory.resolve("src/a.css")));
+			assertEquals("p  {\n  width: 5px;\n}\n", Files.readString(directory.resolve("src/b/b.css")));
+		}
+	}
+
+	@Test
+	void testRemovesTheOutputOfADeletedSource() throws Exception {
+		Path kept = write("kept.icss", "p { width: 1px; }");
+		Path deleted = write("pages/deleted.icss", "p { width: 1px; }");
+		Path output = directory.resolve("out");
+		try (WatchCompiler watchCompiler = new WatchCompiler(directory.resolve("src"), output, 50)) {
+			watchCompiler.build();
+			assertTrue(Files.exists(output.resolve("kept.css")));
+			assertTrue(Files.exists(output.resolve("pages/deleted.css")));
+
+			Files.delete(deleted);
+			Set<Path> touched = watchCompiler.awaitChanges();
+			assertEquals(Set.of(deleted), touched);
+			watchCompiler.update(touched);
+			assertFalse(Files.exists(output.resolve("pages/deleted.css")));
+			assertTrue(Files.exists(output.resolve("kept.css")));
+			assertTrue(Files.exists(kept));
+		}
+	}
+}
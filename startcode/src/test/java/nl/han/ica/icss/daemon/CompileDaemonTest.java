@@ -0,0 +1,73 @@
+package nl.han.ica.icss.daemon;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompileDaemonTest {
+
+	private CompileDaemon daemon;
+	private DaemonClient client;
+
+	@BeforeEach
+	void startDaemon() throws IOException {
+		daemon = new CompileDaemon(0);
+		daemon.start();
+		client = new DaemonClient(daemon.getAddress().getPort());
+	}
+
+	@AfterEach
+	void stopDaemon() {
+		daemon.stop();
+	}
+
+	private String get(String path) throws IOException {
+		URL url = new URL("http", daemon.getAddress().getHostString(), daemon.getAddress().getPort(), path);
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			assertEquals(200, connection.getResponseCode());
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	@Test
+	void testCompileAnswersCss() throws IOException {
+		DaemonClient.Response response = client.compile("p { width: 10px; }");
+		assertEquals(200, response.status);
+		assertEquals("p  {\n  width: 10px;\n}\n", response.body);
+	}
+
+	@Test
+	void testCompileAnswersDiagnostics() throws IOException {
+		DaemonClient.Response response = client.compile("p { width: #ff0000; height: #ff0000; }");
+		assertEquals(422, response.status);
+		assertFalse(response.isSuccess());
+		assertEquals("ERROR: width waarde moet een pixel of percentage zijn.\n" +
+				"ERROR: height waarde moet een pixel of percentage zijn.\n", response.body);
+	}
+
+	@Test
+	void testStatsCountRequests() throws IOException {
+		client.compile("p { width: 10px; }");
+		client.compile("p { width: #ff0000; }");
+
+		String stats = get("/stats");
+		assertTrue(stats.startsWith("requests: 2\n"), stats);
+		assertTrue(stats.contains("\nin-flight: 0\n"), stats);
+		assertTrue(stats.contains("\nmax-in-flight: 1\n"), stats);
+		// The stats request itself is running, not waiting
+		assertTrue(stats.contains("\nqueued: 0\n"), stats);
+		assertTrue(stats.contains("\nll-fallbacks: "), stats);
+		assertEquals(stats.replaceAll("latency-ms: .*", ""), daemon.getStats().replaceAll("latency-ms: .*", ""));
+	}
+}
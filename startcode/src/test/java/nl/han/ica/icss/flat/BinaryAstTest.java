@@ -0,0 +1,105 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.workload.StylesheetGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryAstTest {
+
+	private static AST parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.getErrors().isEmpty(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private static String readTestFile(String resource) throws IOException {
+		try (InputStream inputStream = BinaryAstTest.class.getClassLoader().getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	// Header with an empty string table, followed by the given node bytes
+	private static byte[] nodes(int... nodeBytes) {
+		byte[] bytes = {'I', 'C', 'S', 'A', BinaryAst.FORMAT_VERSION, 0};
+		bytes = Arrays.copyOf(bytes, bytes.length + nodeBytes.length);
+		for (int i = 0; i < nodeBytes.length; i++) {
+			bytes[6 + i] = (byte) nodeBytes[i];
+		}
+		return bytes;
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		for (String resource : List.of("level0.icss", "level1.icss", "level2.icss", "level3.icss")) {
+			AST ast = parse(readTestFile(resource));
+			assertEquals(ast, BinaryAst.decode(ByteBuffer.wrap(BinaryAst.encode(ast))), resource);
+		}
+		// Negative values only exist after evaluation
+		AST checked = parse("p { width: 1px - 300px; height: 10% - 20%; }");
+		new Checker().check(checked);
+		AST evaluated = new Evaluator().evaluate(checked);
+		assertEquals(evaluated, BinaryAst.decode(ByteBuffer.wrap(BinaryAst.encode(evaluated))));
+	}
+
+	@Test
+	void testReadCheckedFileEvaluatesWithoutChecking(@TempDir Path directory) throws IOException {
+		String source = new StylesheetGenerator().rules(50).ifDepth(6).expressionLength(8).nestingDepth(3).generate();
+		AST ast = parse(source);
+		assertTrue(new Checker().check(ast).isEmpty());
+		String expected = new Generator().generate(new Evaluator().evaluate(ast));
+
+		Path file = directory.resolve("generated.icssa");
+		BinaryAst.write(ast, file);
+		assertEquals(expected, new Generator().generate(new Evaluator().evaluate(BinaryAst.read(file))));
+	}
+
+	@Test
+	void testRejectsDamagedInput() {
+		byte[] bytes = BinaryAst.encode(parse("W := 10px; p { width: W; }"));
+		assertThrows(IOException.class, () -> BinaryAst.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+		assertThrows(IOException.class, () -> BinaryAst.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length + 1))));
+
+		// A chain of nested operations far deeper than the stack allows for recursion
+		ByteBuffer deep = ByteBuffer.allocate(1_000_000);
+		deep.put(nodes());
+		deep.put(NodeKind.STYLESHEET.code()).put((byte) 0).put((byte) 1);
+		while (deep.remaining() > 3) {
+			deep.put(NodeKind.ADD_OPERATION.code()).put((byte) 1);
+		}
+		deep.flip();
+		assertThrows(IOException.class, () -> BinaryAst.decode(deep));
+
+		// Well-formed nodes in places the AST builder never puts them
+		for (byte[] misplaced : List.of(
+				nodes(NodeKind.STYLESHEET.code(), 0, 1, NodeKind.ADD_OPERATION.code(), 1, NodeKind.STYLESHEET.code(), 0, 0),
+				nodes(NodeKind.STYLESHEET.code(), 0, 1, NodeKind.VARIABLE_ASSIGNMENT.code(), 2,
+						NodeKind.ADD_OPERATION.code(), 0, NodeKind.PIXEL_LITERAL.code(), 2, 0),
+				nodes(NodeKind.STYLESHEET.code(), 0, 1, NodeKind.PIXEL_LITERAL.code(), 2, 0),
+				nodes(NodeKind.STYLESHEET.code(), 0, 1, NodeKind.STYLERULE.code(), 0, 1, NodeKind.SCALAR_LITERAL.code(), 2, 1,
+						NodeKind.SCALAR_LITERAL.code(), 2, 0),
+				nodes(NodeKind.STYLESHEET.code(), 0, 1, 100, 0))) {
+			assertThrows(IOException.class, () -> BinaryAst.decode(ByteBuffer.wrap(misplaced)), Arrays.toString(misplaced));
+		}
+
+		byte[] otherVersion = bytes.clone();
+		otherVersion[4]++;
+		IOException e = assertThrows(IOException.class, () -> BinaryAst.decode(ByteBuffer.wrap(otherVersion)));
+		assertTrue(e.getMessage().contains("format version"), e.getMessage());
+	}
+}
@@ -0,0 +1,149 @@
+package nl.han.ica.icss.flat;
+
+import nl.han.ica.icss.CompilationResult;
+import nl.han.ica.icss.Compiler;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.workload.StylesheetGenerator;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatAstTest {
+
+	private static String readTestFile(String resource) throws IOException {
+		try (InputStream inputStream = FlatAstTest.class.getClassLoader().getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static AST parse(String source) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(source);
+		assertTrue(pipeline.getErrors().isEmpty(), pipeline.getErrors().toString());
+		return pipeline.getAST();
+	}
+
+	private static List<String> descriptions(List<SemanticError> errors) {
+		List<String> result = new ArrayList<>();
+		for (SemanticError error : errors) {
+			result.add(error.description);
+		}
+		return result;
+	}
+
+	private static FlatAst parseFlat(String source) {
+		ICSSParser parser = new ICSSParser(new CommonTokenStream(new ICSSLexer(CharStreams.fromString(source))));
+		parser.setBuildParseTree(false);
+		FlatAstListener listener = new FlatAstListener();
+		parser.addParseListener(listener);
+		parser.stylesheet();
+		return listener.getAST();
+	}
+
+	private static void assertSameCss(String source) throws IOException {
+		CompilationResult expected = new Compiler().compile(source);
+		assertTrue(expected.isSuccess(), expected.getErrors().toString());
+
+		FlatAst flat = FlatAstConverter.toFlat(parse(source));
+		assertEquals(List.of(), new FlatChecker().check(flat));
+		assertEquals(expected.getCss(), new FlatGenerator().generate(new FlatEvaluator().evaluate(flat)));
+
+		StringBuilder css = new StringBuilder();
+		CompilationResult result = new Compiler().compileFlat(source, css);
+		assertTrue(result.isSuccess(), result.getErrors().toString());
+		assertEquals(expected.getCss(), css.toString());
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		for (String resource : List.of("level0.icss", "level1.icss", "level2.icss", "level3.icss")) {
+			AST ast = parse(readTestFile(resource));
+			assertEquals(ast, FlatAstConverter.toAst(FlatAstConverter.toFlat(ast)), resource);
+		}
+	}
+
+	@Test
+	void testListenerBuildsTheConvertedTree() throws IOException {
+		for (String resource : List.of("level0.icss", "level1.icss", "level2.icss", "level3.icss")) {
+			String source = readTestFile(resource);
+			assertEquals(parse(source), FlatAstConverter.toAst(parseFlat(source)), resource);
+		}
+		String source = new StylesheetGenerator().rules(50).ifDepth(6).expressionLength(8).nestingDepth(3).generate();
+		assertEquals(parse(source), FlatAstConverter.toAst(parseFlat(source)));
+		assertEquals(parse("X := 1px + 2px * 3 - 4px 5px;"), FlatAstConverter.toAst(parseFlat("X := 1px + 2px * 3 - 4px 5px;")));
+	}
+
+	@Test
+	void testCompileFlatReportsTheSameErrors() throws IOException {
+		for (String source : List.of("p { width: 10px ", "p { width: 10px; } $", "p { width: #ff0000; height: #ff0000; color: 10px; }")) {
+			assertEquals(new Compiler().compile(source).getErrors(), new Compiler().compileFlat(source, new StringBuilder()).getErrors(), source);
+			assertEquals(new Compiler(2).compile(source).getErrors(), new Compiler(2).compileFlat(source, new StringBuilder()).getErrors(), source);
+		}
+	}
+
+	@Test
+	void testCompilesLikeTheObjectAst() throws IOException {
+		for (String resource : List.of("level0.icss", "level1.icss", "level2.icss", "level3.icss")) {
+			assertSameCss(readTestFile(resource));
+		}
+		assertSameCss("W := 10px;\n" +
+				"p { W := 20px; L := 1px; a { L := L + 2px; width: W + L * 2; } height: L; }\n" +
+				"q { width: W; }\n");
+		assertSameCss(new StylesheetGenerator().rules(50).ifDepth(6).expressionLength(8).nestingDepth(3).generate());
+	}
+
+	@Test
+	void testReportsTheSameErrors() throws IOException {
+		String source = "C := #ff0000;\n" +
+				"p { width: C; color: 10px + #00ff00; height: Missing; if [C] { X := 2 * 3px; } }\n";
+		List<SemanticError> expected = new Checker().check(parse(source));
+
+		List<SemanticError> errors = new FlatChecker().check(FlatAstConverter.toFlat(parse(source)));
+		assertEquals(descriptions(expected), descriptions(errors));
+		assertEquals(6, errors.size());
+
+		// A variable bound in a branch is not visible after the if clause
+		source = "p { if [FALSE] { X := 1px; } else { Y := 2px; } width: X; height: Y; }";
+		assertEquals(descriptions(new Checker().check(parse(source))),
+				descriptions(new FlatChecker().check(FlatAstConverter.toFlat(parse(source)))));
+		assertSameCss("p { if [FALSE] { X := 1px; } else { X := 2px; width: X; } }");
+		assertSameCss("X := 1px;\np { if [FALSE] { X := 10%; } else { width: X + 1px; X := 20%; } }\n");
+		// A variable of an enclosing scope may not change type in a branch
+		for (String changesType : List.of(
+				"X := 10px; p { if [TRUE] { X := #ff0000; } width: X; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } width: X + 1px; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } } a { width: X + 1px; }",
+				"X := 10px; p { if [TRUE] { X := 50%; } else { X := 2px; } }")) {
+			List<String> expectedErrors = List.of("Variable X changes type in a branch.");
+			assertEquals(expectedErrors, descriptions(new Checker().check(parse(changesType))), changesType);
+			assertEquals(expectedErrors, descriptions(new FlatChecker().check(FlatAstConverter.toFlat(parse(changesType)))), changesType);
+			assertEquals(new Compiler().compile(changesType).getErrors(),
+					new Compiler().compileFlat(changesType, new StringBuilder()).getErrors(), changesType);
+		}
+		assertSameCss("X := 10px; p { if [TRUE] { X := 50%; } else { X := 20%; } width: X + 1%; } a { height: X; }");
+		assertSameCss("X := 10px; p { if [TRUE] { if [TRUE] { X := 50%; } else { X := 1%; } } else { X := 20%; } width: X; }");
+		// A branch that runs updates the variable for the rest of the stylesheet
+		assertSameCss("X := 10px;\n" +
+				"p { if [TRUE] { X := 20px; } width: X; if [FALSE] { X := 30px; } height: X; }\n" +
+				"a { width: X; }\n");
+	}
+
+	@Test
+	void testIsSmallerThanTheObjectAst() {
+		FlatAst flat = FlatAstConverter.toFlat(parse(new StylesheetGenerator().rules(1000).generate()));
+		assertTrue(flat.getArrayBytes() < 24L * flat.size(), flat.getArrayBytes() + " bytes for " + flat.size() + " nodes");
+	}
+}
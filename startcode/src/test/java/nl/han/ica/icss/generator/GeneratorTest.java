@@ -0,0 +1,66 @@
+package nl.han.ica.icss.generator;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorTest {
+
+	// Larger than the buffer of the byte outputs, with characters of two, three and four bytes in UTF-8
+	private static AST stylesheet() {
+		Stylesheet stylesheet = new Stylesheet();
+		for (int i = 0; i < 500; i++) {
+			Declaration width = new Declaration("width");
+			width.expression = new PixelLiteral(i);
+			Declaration color = new Declaration("color");
+			color.expression = new ColorLiteral("#ff0000");
+			stylesheet.addChild(new Stylerule(new ClassSelector(".café-€-😀-" + i),
+					new ArrayList<>(List.of(width, color))));
+		}
+		return new AST(stylesheet);
+	}
+
+	@Test
+	void testOutputStreamGetsUtf8() throws IOException {
+		AST ast = stylesheet();
+		String expected = new Generator().generate(ast);
+		assertTrue(expected.length() > 8192);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new Generator().generateTo(ast, bytes);
+		assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), bytes.toByteArray());
+	}
+
+	@Test
+	void testChannelGetsUtf8() throws IOException {
+		AST ast = stylesheet();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new Generator().generateTo(ast, Channels.newChannel(bytes));
+		assertArrayEquals(new Generator().generate(ast).getBytes(StandardCharsets.UTF_8), bytes.toByteArray());
+	}
+
+	@Test
+	void testPrintStreamIsAnAppendable() throws IOException {
+		AST ast = stylesheet();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8)) {
+			new Generator().generate(ast, out);
+		}
+		assertEquals(new Generator().generate(ast), bytes.toString(StandardCharsets.UTF_8));
+	}
+}
@@ -10,6 +10,7 @@ import org.antlr.v4.runtime.misc.*;
 import org.antlr.v4.runtime.tree.*;
 
 import java.io.*;
+import java.util.List;
 
 class ParserTest {
 
@@ -81,4 +82,19 @@ class ParserTest {
 		AST exp = Fixtures.uncheckedLevel3();
 		assertEquals(exp,sut);
 	}
+	@Test
+	void testIndexedChildrenMatchGetChildren() throws IOException {
+
+		assertChildrenMatch(parseTestFile("level3.icss").root);
+	}
+
+	private static void assertChildrenMatch(ASTNode node) {
+		List<ASTNode> children = node.getChildren();
+		assertEquals(children.size(), node.getChildCount(), node.getNodeLabel());
+		for (int i = 0; i < children.size(); i++) {
+			assertSame(children.get(i), node.getChild(i));
+			assertChildrenMatch(node.getChild(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(children.size()));
+	}
 }
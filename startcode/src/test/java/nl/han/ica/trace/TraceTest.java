@@ -0,0 +1,26 @@
+package nl.han.ica.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceTest {
+
+	@Test
+	void testParseLevels() {
+		TraceLevel[] levels = Trace.parseLevels("scope, lookup:trace");
+		assertEquals(TraceLevel.DEBUG, levels[TraceCategory.SCOPE.ordinal()]);
+		assertEquals(TraceLevel.TRACE, levels[TraceCategory.LOOKUP.ordinal()]);
+		assertNull(levels[TraceCategory.TYPE.ordinal()]);
+
+		assertArrayEquals(new TraceLevel[]{TraceLevel.INFO, TraceLevel.INFO, TraceLevel.INFO},
+				Trace.parseLevels("all:info"));
+		assertArrayEquals(new TraceLevel[3], Trace.parseLevels(""));
+	}
+
+	@Test
+	void testDisabledByDefault() {
+		assertFalse(Trace.SCOPE || Trace.LOOKUP || Trace.TYPE);
+		assertFalse(Trace.isEnabled(TraceCategory.SCOPE, TraceLevel.INFO));
+	}
+}